@@ -69,6 +69,8 @@ public class MuLambdaEvolutionary<I extends BaseInput<? extends BaseItem>,
     O extends BaseOutput<? extends BaseItemPlacement>> extends Algorithm<I, O>
     implements Interruptible {
 
+  private static final long serialVersionUID = 1L;
+
   /** Select operations used for selecting best population. */
   public static enum SelectionOperation {
     /** Best population will be selected based only on new population. */
@@ -78,7 +80,7 @@ public class MuLambdaEvolutionary<I extends BaseInput<? extends BaseItem>,
   }
 
   /** Algorithm used to decode chromosomes. */
-  private final Algorithm<I, O> decoder;
+  private Algorithm<I, O> decoder;
   /** Global lower bound. */
   private final LowerBound<I> lowerBound;
   /** Selection operation. */
@@ -96,9 +98,9 @@ public class MuLambdaEvolutionary<I extends BaseInput<? extends BaseItem>,
   /** Random engine used by algorithm. */
   private Random rnd;
   /** Input to solve by algorithm. */
-  private I input;
+  private transient I input;
   /** Best population. */
-  private List<Chromosome> population;
+  private transient List<Chromosome> population;
 
   /**
    * Creates {@code MuLambdaEvolutionary} by the given parameters.
@@ -125,7 +127,7 @@ public class MuLambdaEvolutionary<I extends BaseInput<? extends BaseItem>,
   public O solve(I input) {
     interrupted = false;
     this.input = input;
-    Number bound = lowerBound.calculateLowerBound(input);
+    double bound = lowerBound.calculateLowerBound(input).doubleValue();
 
     population = new ArrayList<Chromosome>(mu);
     for (int i = 0; i < mu; i++) {
@@ -207,6 +209,17 @@ public class MuLambdaEvolutionary<I extends BaseInput<? extends BaseItem>,
     return result;
   }
 
+  @Override
+  public Object clone() {
+    @SuppressWarnings("unchecked")
+    MuLambdaEvolutionary<I, O> clone = (MuLambdaEvolutionary<I, O>) super.clone();
+    clone.decoder = ObjectUtil.safeClone(decoder);
+    clone.rnd = new Random();
+    clone.input = null;
+    clone.population = null;
+    return clone;
+  }
+
   @Override
   public String getDisplayName() {
     return "MuLambdaEA(" + decoder.getDisplayName() + ")";
@@ -236,13 +249,13 @@ public class MuLambdaEvolutionary<I extends BaseInput<? extends BaseItem>,
     /** Permutation of items identifiers. */
     public int[] itemsPermutation;
     /** Value of objective function for corresponding output. */
-    public Number objectiveValue;
+    public double objectiveValue;
     /** Solution (output) produced by external algorithm. */
     public O solution;
 
     @Override
     public int compareTo(Chromosome o) {
-      return ObjectiveComparator.getSingleton().compare(objectiveValue, o.objectiveValue);
+      return comparator.compare(objectiveValue, o.objectiveValue);
     }
 
     /** Decodes chromosome by running algorithm for transformed input. */
@@ -250,7 +263,7 @@ public class MuLambdaEvolutionary<I extends BaseInput<? extends BaseItem>,
       I transformedInput = ObjectUtil.safeClone(input);
       transformedInput.transform(itemsPermutation);
       solution = decoder.solve(transformedInput);
-      objectiveValue = solution.calculateObjectiveFunction();
+      objectiveValue = solution.calculateObjectiveFunctionAsDouble();
     }
   }
 }
@@ -22,12 +22,9 @@ package com.googlecode.caparf.algorithms.spp2d;
 import java.util.Comparator;
 import java.util.Deque;
 import java.util.LinkedList;
-import java.util.List;
 import java.util.PriorityQueue;
 
 import com.googlecode.caparf.framework.base.Algorithm;
-import com.googlecode.caparf.framework.items.Rectangle;
-import com.googlecode.caparf.framework.items.RectanglePlacement;
 import com.googlecode.caparf.framework.spp2d.Input;
 import com.googlecode.caparf.framework.spp2d.Output;
 
@@ -54,6 +51,8 @@ import com.googlecode.caparf.framework.spp2d.Output;
  */
 public class SimpleFit extends Algorithm<Input, Output> {
 
+  private static final long serialVersionUID = 1L;
+
   /** Id corresponding to no rectangle. */
   public static final int ID_NO_RECT = -1;
 
@@ -80,31 +79,31 @@ public class SimpleFit extends Algorithm<Input, Output> {
   }
 
   /** First-In-First-Out queue that stores free segments. */
-  protected Deque<Segment> queue;
+  protected transient Deque<Segment> queue;
 
   /** Priority queue that stores segments occupied by rectangles. */
-  protected PriorityQueue<Segment> heap;
+  protected transient PriorityQueue<Segment> heap;
 
   /** Total number of rectangles. */
   protected int rectsCount;
 
-  /** Width of rectangles, constructed from {@code input.getRactangles()}. */
-  protected int width[];
+  /** Width of rectangles, shared with {@code input.getRectangles()}. */
+  protected transient int width[];
 
-  /** Height of rectangles, constructed from {@code input.getRactangles()}. */
-  protected int height[];
+  /** Height of rectangles, shared with {@code input.getRectangles()}. */
+  protected transient int height[];
 
   /** Strip width. */
   protected int stripWidth;
 
-  /** Positions of rectangles */
-  protected RectanglePlacement[] placements;
+  /** Output being built, it keeps positions of rectangles and strip height. */
+  protected transient Output output;
 
   /** Total number of placed rectangles correspondingly. */
   protected int placedRects;
 
   /** Items tree used for fast searching of feasible items. */
-  protected ItemsTree itemsTree;
+  protected transient ItemsTree itemsTree;
 
   /** Items selection order. */
   protected final ItemOrder itemOrder;
@@ -126,19 +125,14 @@ public class SimpleFit extends Algorithm<Input, Output> {
   @Override
   public Output solve(Input input) {
     rectsCount = input.getItemsCount();
-    width = new int[rectsCount];
-    height = new int[rectsCount];
-    List<Rectangle> rectangles = input.getItems();
-    for (int i = 0; i < rectsCount; i++) {
-      width[i] = rectangles.get(i).getWidth();
-      height[i] = rectangles.get(i).getHeight();
-    }
+    width = input.getRectangles().getWidths();
+    height = input.getRectangles().getHeights();
     stripWidth = input.getStripWidth();
     if (itemOrder == ItemOrder.FIRST_FIT) {
       itemsTree = new ItemsTree();
     }
     placedRects = 0;
-    placements = new RectanglePlacement[rectsCount];
+    output = new Output(input);
 
     queue = new LinkedList<Segment>();
     queue.addFirst(new Segment(0, stripWidth, 0, ID_NO_RECT));
@@ -185,7 +179,7 @@ public class SimpleFit extends Algorithm<Input, Output> {
           }
 
           // Save coordinates of newly placed rectangle and add it to heap
-          placements[rectId] = new RectanglePlacement(rectSegment.xl, y0);
+          output.setPlacement(rectId, rectSegment.xl, y0);
           heap.add(rectSegment);
           success = true;
         }
@@ -194,9 +188,9 @@ public class SimpleFit extends Algorithm<Input, Output> {
         if (placementStrategy == PlacementStrategy.SHIFT_RIGHTMOST_ITEM && success &&
             freeSegment.xr > freeSegment.xl && freeSegment.next == null) {
           freeSegment.swapWithPrevious();
-          RectanglePlacement oldPlacement = placements[freeSegment.next.rectId];
-          placements[freeSegment.next.rectId] = new RectanglePlacement(freeSegment.next.xl,
-              oldPlacement.getY());
+          int shiftedId = freeSegment.next.rectId;
+          output.setPlacement(shiftedId, freeSegment.next.xl,
+              output.getPlacementList().getY(shiftedId));
         }
       } else {
         // Change current y-coordinate to the least y-coordinate of segments in
@@ -221,7 +215,7 @@ public class SimpleFit extends Algorithm<Input, Output> {
       }
     }
 
-    return new Output(input, placements);
+    return output;
   }
 
   /**
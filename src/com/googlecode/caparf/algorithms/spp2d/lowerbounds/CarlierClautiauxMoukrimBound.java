@@ -19,6 +19,8 @@
 
 package com.googlecode.caparf.algorithms.spp2d.lowerbounds;
 
+import java.io.Serializable;
+
 import com.googlecode.caparf.framework.base.LowerBound;
 import com.googlecode.caparf.framework.spp2d.Input;
 
@@ -41,7 +43,9 @@ import com.googlecode.caparf.framework.spp2d.Input;
  *
  * @author denis.nsc@gmail.com (Denis Nazarov)
  */
-public class CarlierClautiauxMoukrimBound implements LowerBound<Input> {
+public class CarlierClautiauxMoukrimBound implements LowerBound<Input>, Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   @Override
   public Number calculateLowerBound(Input input) {
@@ -54,10 +58,11 @@ public class CarlierClautiauxMoukrimBound implements LowerBound<Input> {
 
   /** Calculates lower bound for the given parameter {@code k}. */
   private int getBound(Input input, int k) {
+    int[] widths = input.getRectangles().getWidths();
+    int[] heights = input.getRectangles().getHeights();
     int totalArea = 0;
-    for (int i = 0; i < input.getItemsCount(); i++) {
-      totalArea += input.getItems().get(i).getHeight() *
-          f(input.getItems().get(i).getWidth(), input.getStripWidth(), k);
+    for (int i = 0; i < widths.length; i++) {
+      totalArea += heights[i] * f(widths[i], input.getStripWidth(), k);
     }
     int ck = 2 * (input.getStripWidth() / k);
     int ret = totalArea / ck;
@@ -19,8 +19,9 @@
 
 package com.googlecode.caparf.algorithms.spp2d.lowerbounds;
 
+import java.io.Serializable;
+
 import com.googlecode.caparf.framework.base.LowerBound;
-import com.googlecode.caparf.framework.items.Rectangle;
 import com.googlecode.caparf.framework.spp2d.Input;
 
 /**
@@ -29,13 +30,17 @@ import com.googlecode.caparf.framework.spp2d.Input;
  *
  * @author denis.nsc@gmail.com (Denis Nazarov)
  */
-public class ContinuousBound implements LowerBound<Input> {
+public class ContinuousBound implements LowerBound<Input>, Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   @Override
   public Number calculateLowerBound(Input input) {
+    int[] widths = input.getRectangles().getWidths();
+    int[] heights = input.getRectangles().getHeights();
     int itemsArea = 0;
-    for (Rectangle rect : input.getItems()) {
-      itemsArea += rect.getHeight() * rect.getWidth();
+    for (int i = 0; i < widths.length; i++) {
+      itemsArea += heights[i] * widths[i];
     }
     int result = itemsArea / input.getStripWidth();
     if (itemsArea % input.getStripWidth() > 0) {
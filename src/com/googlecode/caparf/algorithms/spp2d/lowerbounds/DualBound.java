@@ -19,11 +19,10 @@
 
 package com.googlecode.caparf.algorithms.spp2d.lowerbounds;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.Serializable;
 
 import com.googlecode.caparf.framework.base.LowerBound;
-import com.googlecode.caparf.framework.items.Rectangle;
+import com.googlecode.caparf.framework.items.RectangleSet;
 import com.googlecode.caparf.framework.spp2d.Input;
 
 /**
@@ -42,7 +41,9 @@ import com.googlecode.caparf.framework.spp2d.Input;
  *
  * @author denis.nsc@gmail.com (Denis Nazarov)
  */
-public class DualBound implements LowerBound<Input> {
+public class DualBound implements LowerBound<Input>, Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   /**
    * Nested lower bound that is used to calculate bounds for both original and
@@ -64,10 +65,7 @@ public class DualBound implements LowerBound<Input> {
   public Number calculateLowerBound(Input input) {
     int originalBound = nestedBound.calculateLowerBound(input).intValue();
     int dualBound = originalBound;
-    List<Rectangle> rotatedRectangles = new ArrayList<Rectangle>(input.getItemsCount());
-    for (Rectangle rect : input.getItems()) {
-      rotatedRectangles.add(new Rectangle(rect.getHeight(), rect.getWidth()));
-    }
+    RectangleSet rotatedRectangles = input.getRectangles().rotate();
     while (true) {
       Input dualInput = new Input(rotatedRectangles, dualBound, input.getIdentifier());
       if (nestedBound.calculateLowerBound(dualInput).intValue() <= input.getStripWidth()) {
@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2010 Denis Nazarov <denis.nsc@gmail.com>.
+ *
+ * This file is part of caparf (http://code.google.com/p/caparf/).
+ *
+ * caparf is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * caparf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with caparf. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.caparf.benchmarks;
+
+/**
+ * Single benchmarked operation measured by {@link BenchmarkRunner}.
+ *
+ * @author denis.nsc@gmail.com (Denis Nazarov)
+ */
+public interface Benchmark {
+
+  /**
+   * Performs benchmarked operation once. Result of the operation must be
+   * returned, so that JIT compiler can't eliminate the computation.
+   *
+   * @return result of the operation
+   */
+  Object run();
+}
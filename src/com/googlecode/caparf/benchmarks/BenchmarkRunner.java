@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2010 Denis Nazarov <denis.nsc@gmail.com>.
+ *
+ * This file is part of caparf (http://code.google.com/p/caparf/).
+ *
+ * caparf is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * caparf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with caparf. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.caparf.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal harness that measures throughput and allocation rate of
+ * {@link Benchmark}s.
+ * <p>
+ * Every benchmark is run for several warmup iterations followed by several
+ * measurement iterations. Each iteration calls benchmark repeatedly for (at
+ * least) the given time. Throughput is reported as mean and standard deviation
+ * of operations per second over measurement iterations. Allocated bytes are
+ * measured by {@code com.sun.management.ThreadMXBean} when JVM supports it.
+ * <p>
+ * Supported command line arguments:
+ * <ul>
+ * <li>{@code -wi N} number of warmup iterations (default 5);
+ * <li>{@code -i N} number of measurement iterations (default 5);
+ * <li>{@code -r MILLIS} duration of iteration in milliseconds (default 1000);
+ * <li>{@code REGEXP} runs only benchmarks whose names contain match of the
+ * given regular expression.
+ * </ul>
+ *
+ * @author denis.nsc@gmail.com (Denis Nazarov)
+ */
+public final class BenchmarkRunner {
+
+  private static final String USAGE = "Arguments: [-wi N] [-i N] [-r MILLIS] [REGEXP]";
+
+  private static final long NANOS_PER_MILLIS = 1000000;
+
+  private static final double BYTES_PER_MEGABYTE = 1024.0 * 1024.0;
+
+  /** Result of the last operation, prevents dead code elimination. */
+  private static volatile Object sink;
+
+  private int warmupIterations = 5;
+  private int measurementIterations = 5;
+  private long iterationMillis = 1000;
+  private Pattern filter = null;
+  private boolean headerPrinted = false;
+
+  /**
+   * Constructs runner configured by the given command line arguments.
+   *
+   * @param args command line arguments
+   * @throws IllegalArgumentException if arguments are invalid
+   */
+  public BenchmarkRunner(String[] args) {
+    try {
+      for (int i = 0; i < args.length; i++) {
+        if (args[i].equals("-wi")) {
+          warmupIterations = Integer.parseInt(args[++i]);
+        } else if (args[i].equals("-i")) {
+          measurementIterations = Integer.parseInt(args[++i]);
+        } else if (args[i].equals("-r")) {
+          iterationMillis = Long.parseLong(args[++i]);
+        } else if (filter == null && !args[i].startsWith("-")) {
+          filter = Pattern.compile(args[i]);
+        } else {
+          throw new IllegalArgumentException(USAGE);
+        }
+      }
+    } catch (ArrayIndexOutOfBoundsException e) {
+      throw new IllegalArgumentException(USAGE);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(USAGE);
+    }
+    if (warmupIterations < 0 || measurementIterations < 1 || iterationMillis < 1) {
+      throw new IllegalArgumentException(USAGE);
+    }
+  }
+
+  /**
+   * @return whether benchmark with the given {@code name} will be run
+   */
+  public boolean isSelected(String name) {
+    return filter == null || filter.matcher(name).find();
+  }
+
+  /**
+   * Measures the given {@code benchmark} and prints results to standard output
+   * unless benchmark is not selected by command line arguments.
+   *
+   * @param name name of the benchmark
+   * @param benchmark benchmark to measure
+   */
+  public void run(String name, Benchmark benchmark) {
+    if (!isSelected(name)) {
+      return;
+    }
+    if (!headerPrinted) {
+      System.out.println(String.format("%-50s %14s %12s %14s %12s", "Benchmark", "ops/s",
+          "error", "alloc B/op", "alloc MB/s"));
+      headerPrinted = true;
+    }
+    for (int i = 0; i < warmupIterations; i++) {
+      iterate(benchmark);
+    }
+    double[] throughput = new double[measurementIterations];
+    long totalOperations = 0;
+    long totalNanos = 0;
+    long totalBytes = 0;
+    for (int i = 0; i < measurementIterations; i++) {
+      long[] result = iterate(benchmark);
+      throughput[i] = result[0] * 1e9 / result[1];
+      totalOperations += result[0];
+      totalNanos += result[1];
+      totalBytes = (totalBytes < 0 || result[2] < 0) ? -1 : totalBytes + result[2];
+    }
+    double mean = 0;
+    for (double x : throughput) {
+      mean += x;
+    }
+    mean /= measurementIterations;
+    double variance = 0;
+    for (double x : throughput) {
+      variance += (x - mean) * (x - mean);
+    }
+    double error = measurementIterations == 1 ? 0 :
+        Math.sqrt(variance / (measurementIterations - 1));
+    String bytesPerOperation = "n/a";
+    String megabytesPerSecond = "n/a";
+    if (totalBytes >= 0) {
+      bytesPerOperation = String.format("%.1f", (double) totalBytes / totalOperations);
+      megabytesPerSecond = String.format("%.1f",
+          totalBytes / BYTES_PER_MEGABYTE * 1e9 / totalNanos);
+    }
+    System.out.println(String.format("%-50s %14.3f %12.3f %14s %12s", name, mean, error,
+        bytesPerOperation, megabytesPerSecond));
+  }
+
+  /**
+   * Runs single iteration of the given {@code benchmark}.
+   *
+   * @return number of operations, elapsed nanoseconds and allocated bytes (or
+   *         -1 if allocations can't be measured)
+   */
+  private long[] iterate(Benchmark benchmark) {
+    System.gc();
+    long startBytes = allocatedBytes();
+    long startNanos = System.nanoTime();
+    long deadline = startNanos + iterationMillis * NANOS_PER_MILLIS;
+    long operations = 0;
+    long nanos;
+    do {
+      sink = benchmark.run();
+      operations++;
+      nanos = System.nanoTime();
+    } while (nanos < deadline);
+    long endBytes = allocatedBytes();
+    long bytes = (startBytes < 0 || endBytes < 0) ? -1 : endBytes - startBytes;
+    return new long[] {operations, nanos - startNanos, bytes};
+  }
+
+  /**
+   * @return bytes allocated by the current thread or -1 if JVM does not support
+   *         measurement of allocated bytes
+   */
+  private static long allocatedBytes() {
+    try {
+      return ThreadAllocation.allocatedBytes();
+    } catch (LinkageError e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Isolates usage of {@code com.sun.management} API, which is not available
+   * on some JVMs.
+   */
+  private static final class ThreadAllocation {
+    static long allocatedBytes() {
+      java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+      if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+        return -1;
+      }
+      com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+      if (!sunBean.isThreadAllocatedMemorySupported()) {
+        return -1;
+      }
+      return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+  }
+}
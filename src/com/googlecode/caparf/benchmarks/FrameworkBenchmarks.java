@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2010 Denis Nazarov <denis.nsc@gmail.com>.
+ *
+ * This file is part of caparf (http://code.google.com/p/caparf/).
+ *
+ * caparf is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * caparf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with caparf. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.caparf.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.googlecode.caparf.algorithms.spp2d.SimpleFit;
+import com.googlecode.caparf.algorithms.spp2d.SimpleFit.ItemOrder;
+import com.googlecode.caparf.algorithms.spp2d.SimpleFit.PlacementStrategy;
+import com.googlecode.caparf.algorithms.spp2d.lowerbounds.CarlierClautiauxMoukrimBound;
+import com.googlecode.caparf.algorithms.spp2d.lowerbounds.ContinuousBound;
+import com.googlecode.caparf.algorithms.spp2d.lowerbounds.DualBound;
+import com.googlecode.caparf.framework.base.BaseInput;
+import com.googlecode.caparf.framework.base.BaseOutput;
+import com.googlecode.caparf.framework.base.BaseOutputVerifier;
+import com.googlecode.caparf.framework.base.LowerBound;
+import com.googlecode.caparf.framework.items.Rectangle;
+import com.googlecode.caparf.framework.items.RectangleBinPlacement;
+import com.googlecode.caparf.framework.spp2d.Input;
+import com.googlecode.caparf.inputs.bpp2d.BerkeyWangGenerator;
+import com.googlecode.caparf.inputs.bpp2d.BerkeyWangGenerator.Type;
+import com.googlecode.caparf.inputs.spp2d.Converter;
+
+/**
+ * Benchmarks framework code that runs besides algorithms during scenario run:
+ * output verifiers of all problems, strip packing lower bounds, objective
+ * function calculation, {@link BaseInput#clone()} and
+ * {@link BaseInput#transform(int[])}. Benchmarks are parameterized by number
+ * of items and by Berkey-Wang class of items, which determines strip width and
+ * bin size. Look at {@link BenchmarkRunner} for command line arguments.
+ *
+ * @author denis.nsc@gmail.com (Denis Nazarov)
+ */
+public class FrameworkBenchmarks {
+
+  /** Seed of random instances, so that all runs measure the same instances. */
+  private static final long SEED = 20100705L;
+
+  private static final int[] ITEMS_COUNTS = {10, 100, 1000, 10000};
+
+  private static final String[] TYPE_NAMES = {"I", "IV", "VI"};
+  private static final Type[] TYPES = {
+      BerkeyWangGenerator.CLASS_I, BerkeyWangGenerator.CLASS_IV, BerkeyWangGenerator.CLASS_VI};
+
+  public static void main(String[] args) {
+    BenchmarkRunner runner = new BenchmarkRunner(args);
+    for (int itemsCount : ITEMS_COUNTS) {
+      for (int t = 0; t < TYPES.length; t++) {
+        String suffix = ".class" + TYPE_NAMES[t] + "." + itemsCount;
+
+        com.googlecode.caparf.framework.bpp2d.Input bpp2dInput =
+            new BerkeyWangGenerator().generateInstance(itemsCount, TYPES[t], SEED);
+        com.googlecode.caparf.framework.bpp2d.Output bpp2dOutput = shelfPacking(bpp2dInput);
+        Input spp2dInput = Converter.convertBpp2d(bpp2dInput);
+        com.googlecode.caparf.framework.spp2d.Output spp2dOutput =
+            new SimpleFit(ItemOrder.NEXT_ITEM, PlacementStrategy.DEFAULT).solve(spp2dInput);
+        com.googlecode.caparf.framework.opp2d.Input opp2dInput =
+            new com.googlecode.caparf.framework.opp2d.Input(spp2dInput.getRectangles(),
+                spp2dInput.getStripWidth(),
+                spp2dOutput.calculateObjectiveFunction().intValue(),
+                "opp2d.benchmark" + suffix);
+        com.googlecode.caparf.framework.opp2d.Output opp2dOutput =
+            new com.googlecode.caparf.framework.opp2d.Output(spp2dOutput.getPlacementList());
+
+        runner.run("spp2d.OutputVerifier" + suffix, verify(
+            new com.googlecode.caparf.framework.spp2d.OutputVerifier(), spp2dInput, spp2dOutput));
+        runner.run("bpp2d.OutputVerifier" + suffix, verify(
+            new com.googlecode.caparf.framework.bpp2d.OutputVerifier(), bpp2dInput, bpp2dOutput));
+        runner.run("opp2d.OutputVerifier" + suffix, verify(
+            new com.googlecode.caparf.framework.opp2d.OutputVerifier(), opp2dInput, opp2dOutput));
+
+        runner.run("ContinuousBound" + suffix, lowerBound(new ContinuousBound(), spp2dInput));
+        runner.run("CarlierClautiauxMoukrimBound" + suffix,
+            lowerBound(new CarlierClautiauxMoukrimBound(), spp2dInput));
+        runner.run("DualBound.ContinuousBound" + suffix,
+            lowerBound(new DualBound(new ContinuousBound()), spp2dInput));
+
+        runner.run("spp2d.Output.objective" + suffix, objective(spp2dOutput));
+        runner.run("bpp2d.Output.objective" + suffix, objective(bpp2dOutput));
+        runner.run("opp2d.Output.objective" + suffix, objective(opp2dOutput));
+
+        runner.run("BaseInput.clone" + suffix, cloneInput(spp2dInput));
+        runner.run("BaseInput.cloneAndTransform" + suffix,
+            cloneAndTransformInput(spp2dInput, randomPermutation(itemsCount)));
+      }
+    }
+  }
+
+  /**
+   * Packs items of the given bin packing {@code input} into bins by shelves:
+   * items are placed from left to right, new shelf is started when item does
+   * not fit into the current one, new bin is started when shelf does not fit.
+   */
+  private static com.googlecode.caparf.framework.bpp2d.Output shelfPacking(
+      com.googlecode.caparf.framework.bpp2d.Input input) {
+    List<RectangleBinPlacement> placements =
+        new ArrayList<RectangleBinPlacement>(input.getItemsCount());
+    int x = 0, y = 0, shelfHeight = 0, bin = 0;
+    for (Rectangle item : input.getItems()) {
+      if (x + item.getWidth() > input.getBinWidth()) {
+        x = 0;
+        y += shelfHeight;
+        shelfHeight = 0;
+      }
+      if (y + item.getHeight() > input.getBinHeight()) {
+        x = 0;
+        y = 0;
+        shelfHeight = 0;
+        bin++;
+      }
+      placements.add(new RectangleBinPlacement(x, y, bin));
+      x += item.getWidth();
+      shelfHeight = Math.max(shelfHeight, item.getHeight());
+    }
+    return new com.googlecode.caparf.framework.bpp2d.Output(placements);
+  }
+
+  private static int[] randomPermutation(int size) {
+    List<Integer> permutation = new ArrayList<Integer>(size);
+    for (int i = 0; i < size; i++) {
+      permutation.add(i);
+    }
+    Collections.shuffle(permutation, new Random(SEED));
+    int[] result = new int[size];
+    for (int i = 0; i < size; i++) {
+      result[i] = permutation.get(i);
+    }
+    return result;
+  }
+
+  private static <I extends BaseInput<Rectangle>, O extends BaseOutput<?>> Benchmark verify(
+      final BaseOutputVerifier<I, O> verifier, final I input, final O output) {
+    return new Benchmark() {
+      @Override
+      public Object run() {
+        return verifier.verify(input, output);
+      }
+    };
+  }
+
+  private static Benchmark lowerBound(final LowerBound<Input> bound, final Input input) {
+    return new Benchmark() {
+      @Override
+      public Object run() {
+        return bound.calculateLowerBound(input);
+      }
+    };
+  }
+
+  private static Benchmark objective(final BaseOutput<?> output) {
+    return new Benchmark() {
+      @Override
+      public Object run() {
+        return output.calculateObjectiveFunction();
+      }
+    };
+  }
+
+  private static Benchmark cloneInput(final Input input) {
+    return new Benchmark() {
+      @Override
+      public Object run() {
+        return input.clone();
+      }
+    };
+  }
+
+  private static Benchmark cloneAndTransformInput(final Input input, final int[] permutation) {
+    return new Benchmark() {
+      @Override
+      public Object run() {
+        Input clone = (Input) input.clone();
+        clone.transform(permutation);
+        return clone;
+      }
+    };
+  }
+}
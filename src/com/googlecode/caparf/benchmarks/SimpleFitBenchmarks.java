@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2010 Denis Nazarov <denis.nsc@gmail.com>.
+ *
+ * This file is part of caparf (http://code.google.com/p/caparf/).
+ *
+ * caparf is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * caparf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with caparf. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.caparf.benchmarks;
+
+import java.util.List;
+
+import com.googlecode.caparf.algorithms.spp2d.SimpleFit;
+import com.googlecode.caparf.algorithms.spp2d.SimpleFit.ItemOrder;
+import com.googlecode.caparf.algorithms.spp2d.SimpleFit.PlacementStrategy;
+import com.googlecode.caparf.framework.spp2d.Input;
+import com.googlecode.caparf.inputs.bpp2d.BerkeyWangGenerator;
+import com.googlecode.caparf.inputs.bpp2d.MartelloVigoGenerator;
+import com.googlecode.caparf.inputs.spp2d.Converter;
+
+/**
+ * Benchmarks {@link SimpleFit#solve(Input)} for all combinations of
+ * {@link ItemOrder} and {@link PlacementStrategy} on Berkey-Wang and
+ * Martello-Vigo reference instances (one operation solves the whole set) and on
+ * random instances with 10 to 1,000,000 items (Berkey-Wang class V items).
+ * Look at {@link BenchmarkRunner} for command line arguments.
+ *
+ * @author denis.nsc@gmail.com (Denis Nazarov)
+ */
+public class SimpleFitBenchmarks {
+
+  /** Seed of random instances, so that all runs measure the same instances. */
+  private static final long SEED = 20100705L;
+
+  private static final int MIN_RANDOM_ITEMS = 10;
+  private static final int MAX_RANDOM_ITEMS = 1000000;
+
+  public static void main(String[] args) {
+    BenchmarkRunner runner = new BenchmarkRunner(args);
+
+    List<Input> berkeyWang = Converter.convertBpp2d(BerkeyWangGenerator.getReferenceInstances());
+    List<Input> martelloVigo =
+        Converter.convertBpp2d(MartelloVigoGenerator.getReferenceInstances());
+
+    for (ItemOrder itemOrder : ItemOrder.values()) {
+      for (PlacementStrategy placementStrategy : PlacementStrategy.values()) {
+        SimpleFit algorithm = new SimpleFit(itemOrder, placementStrategy);
+        String prefix = "SimpleFit." + algorithm.getDisplayName() + ".";
+        runner.run(prefix + "BerkeyWang", solveAll(algorithm, berkeyWang));
+        runner.run(prefix + "MartelloVigo", solveAll(algorithm, martelloVigo));
+        for (int items = MIN_RANDOM_ITEMS; items <= MAX_RANDOM_ITEMS; items *= 10) {
+          String name = prefix + "random." + items;
+          if (runner.isSelected(name)) {
+            runner.run(name, solve(algorithm, randomInput(items)));
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * @return random strip packing input with the given number of items
+   */
+  static Input randomInput(int itemsCount) {
+    return Converter.convertBpp2d(new BerkeyWangGenerator().generateInstance(itemsCount,
+        BerkeyWangGenerator.CLASS_V, SEED));
+  }
+
+  private static Benchmark solve(final SimpleFit algorithm, final Input input) {
+    return new Benchmark() {
+      @Override
+      public Object run() {
+        return algorithm.solve(input);
+      }
+    };
+  }
+
+  private static Benchmark solveAll(final SimpleFit algorithm, final List<Input> inputs) {
+    return new Benchmark() {
+      @Override
+      public Object run() {
+        Object last = null;
+        for (Input input : inputs) {
+          last = algorithm.solve(input);
+        }
+        return last;
+      }
+    };
+  }
+}
@@ -29,6 +29,9 @@ import com.googlecode.caparf.framework.spp2d.Input;
 import com.googlecode.caparf.framework.spp2d.Output;
 
 public class OneLineSample extends Algorithm<Input, Output> {
+
+  private static final long serialVersionUID = 1L;
+
   @Override
   public Output solve(Input input) {
     List<RectanglePlacement> placement = new ArrayList<RectanglePlacement>(input.getItemsCount());
@@ -19,8 +19,20 @@
 
 package com.googlecode.caparf.framework.base;
 
+import java.io.Serializable;
+
 /**
  * Base class for cutting-and-packing algorithms.
+ * <p>
+ * Algorithms are cloneable. When scenario is run in parallel each run gets its
+ * own shallow clone of the algorithm, so the same algorithm instance never
+ * solves two inputs at the same time. Algorithms that keep references to other
+ * stateful objects (like nested algorithms) should override {@link #clone()}
+ * and clone them as well.
+ * <p>
+ * Algorithms are also serializable in order to be run in separate JVM (look at
+ * {@link com.googlecode.caparf.framework.runner.ForkedRunner}). Fields that
+ * hold state of the current run should be declared {@code transient}.
  *
  * @param <I> algorithm input class
  * @param <O> algorithm output class
@@ -28,7 +40,10 @@ package com.googlecode.caparf.framework.base;
  * @author denis.nsc@gmail.com (Denis Nazarov)
  */
 public abstract class Algorithm<I extends BaseInput<? extends BaseItem>,
-    O extends BaseOutput<? extends BaseItemPlacement>> {
+    O extends BaseOutput<? extends BaseItemPlacement>> implements BaseCloneable,
+    Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   /**
    * Runs algorithm for the given {@code input} and returns {@code output}.
@@ -48,6 +63,16 @@ public abstract class Algorithm<I extends BaseInput<? extends BaseItem>,
     return this.getClass().getSimpleName();
   }
 
+  @Override
+  public Object clone() {
+    try {
+      return super.clone();
+    } catch (CloneNotSupportedException e) {
+      // this shouldn't happen, since we are Cloneable
+      throw new InternalError();
+    }
+  }
+
   @Override
   public String toString() {
     return getDisplayName();
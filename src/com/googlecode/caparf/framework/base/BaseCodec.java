@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2010 Denis Nazarov <denis.nsc@gmail.com>.
+ *
+ * This file is part of caparf (http://code.google.com/p/caparf/).
+ *
+ * caparf is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * caparf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with caparf. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.caparf.framework.base;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Base interface for compact binary codecs of cutting-and-packing algorithms'
+ * inputs and outputs. Codecs are used to pass inputs and outputs between JVMs
+ * (look at {@link com.googlecode.caparf.framework.runner.ForkedRunner}), so
+ * concrete codec class must have public constructor without arguments.
+ *
+ * @param <I> algorithm input class
+ * @param <O> algorithm output class
+ *
+ * @author denis.nsc@gmail.com (Denis Nazarov)
+ */
+public interface BaseCodec<I extends BaseInput<? extends BaseItem>,
+    O extends BaseOutput<? extends BaseItemPlacement>> {
+
+  /**
+   * Writes the given {@code input} to {@code out}.
+   *
+   * @param out binary output stream
+   * @param input algorithm input to write
+   * @throws IOException if an I/O error occurs
+   */
+  void writeInput(DataOutput out, I input) throws IOException;
+
+  /**
+   * Reads algorithm input from {@code in}.
+   *
+   * @param in binary input stream
+   * @return algorithm input
+   * @throws IOException if an I/O error occurs
+   */
+  I readInput(DataInput in) throws IOException;
+
+  /**
+   * Writes the given non-null {@code output} to {@code out}.
+   *
+   * @param out binary output stream
+   * @param output algorithm output to write
+   * @throws IOException if an I/O error occurs
+   */
+  void writeOutput(DataOutput out, O output) throws IOException;
+
+  /**
+   * Reads algorithm output for the given {@code input} from {@code in}.
+   *
+   * @param in binary input stream
+   * @param input algorithm input corresponding to the output
+   * @return algorithm output
+   * @throws IOException if an I/O error occurs
+   */
+  O readOutput(DataInput in, I input) throws IOException;
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2010 Denis Nazarov <denis.nsc@gmail.com>.
+ *
+ * This file is part of caparf (http://code.google.com/p/caparf/).
+ *
+ * caparf is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * caparf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with caparf. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.caparf.framework.base;
+
+/**
+ * Verifier that is able to check outputs differing from already verified
+ * output in few placements much faster than verifying them from scratch. This
+ * is useful for search algorithms that generate solutions by changing few
+ * placements of their parent solutions.
+ * <p>
+ * Incremental verification is done within {@link Session}, which is started
+ * with valid baseline output. Verdicts of session are the same as verdicts of
+ * {@link #verify(BaseInput, BaseOutput)} for the same outputs.
+ *
+ * @param <I> algorithm input
+ * @param <O> algorithm output
+ *
+ * @author denis.nsc@gmail.com (Denis Nazarov)
+ */
+public interface BaseIncrementalOutputVerifier<I extends BaseInput<? extends BaseItem>,
+    O extends BaseOutput<? extends BaseItemPlacement>> extends BaseOutputVerifier<I, O> {
+
+  /**
+   * Starts incremental verification of outputs derived from the given
+   * {@code baseline} output. Baseline is verified from scratch. Session does
+   * not keep references to {@code baseline}, so it can be modified afterwards.
+   *
+   * @param input algorithm input
+   * @param baseline valid algorithm output
+   * @return incremental verification session
+   * @throws IllegalArgumentException if baseline is not valid
+   */
+  Session<O> startSession(I input, O baseline);
+
+  /**
+   * Incremental verification session. Sessions are not thread-safe.
+   *
+   * @param <O> algorithm output
+   */
+  interface Session<O extends BaseOutput<? extends BaseItemPlacement>> {
+
+    /**
+     * Verifies the given {@code output} which differs from the current
+     * baseline only in placements with indices {@code changedItems}. Only these
+     * placements are checked, and only against placements close to them.
+     * Baseline is not changed.
+     *
+     * @param output algorithm output
+     * @param changedItems indices of changed placements
+     * @return output verification verdict
+     */
+    Verdict verify(O output, int[] changedItems);
+
+    /**
+     * Makes the given valid {@code output}, which differs from the current
+     * baseline only in placements with indices {@code changedItems}, the new
+     * baseline.
+     *
+     * @param output valid algorithm output
+     * @param changedItems indices of changed placements
+     */
+    void setBaseline(O output, int[] changedItems);
+  }
+}
@@ -25,7 +25,6 @@ import java.util.List;
 
 import com.googlecode.caparf.framework.runner.Scenario;
 import com.googlecode.caparf.framework.util.CollectionUtil;
-import com.googlecode.caparf.framework.util.ObjectUtil;
 import com.googlecode.caparf.inputs.bpp2d.BerkeyWangGenerator;
 
 /**
@@ -41,7 +40,18 @@ import com.googlecode.caparf.inputs.bpp2d.BerkeyWangGenerator;
  * <li><b>Transformation</b>. Inputs can be transformed according to the given
  * transformation which is simply a many-to-one mapping between new and original
  * items. This can be extremely useful for various genetic algorithms.
- * <li><b>Cloning</b>. Inputs are clonable.
+ * Transformation is lazy: transformed input is a view of the original items
+ * until its items are requested in a specialized form.
+ * <li><b>Cloning</b>. Inputs are clonable. Cloning is cheap since clones share
+ * items and pending transformation.
+ * <li><b>Read-only mode</b>. Input can be made read-only, so that it can be
+ * safely shared by several algorithms and verifiers. Any attempt to transform
+ * read-only input fails.
+ * <li><b>Content</b>. Inputs having different identifiers can still be the
+ * same instance of the problem. Such inputs are {@link #contentEquals(BaseInput)
+ * content-equal} and have equal {@link #contentHash() content hashes}, which
+ * can be used to deduplicate inputs and to key caches (look at
+ * {@link com.googlecode.caparf.framework.util.InputContentMap}).
  * </ol>
  * <p>
  * Use the following convention to generate input identifiers. First part of
@@ -51,20 +61,23 @@ import com.googlecode.caparf.inputs.bpp2d.BerkeyWangGenerator;
  * and Wang.Class 3.08</code>". {@code spp2d} is the problem name, {@code Berkey
  * and Wang} is the source.
  * <p>
- * One needs to define item class for new problem extending {@link BaseItem}. If
- * item class consists only of primitive types then there is no need to
- * implement your own clone logic. Otherwise one needs to override
- * {@link BaseItem#clone()} and implement clone logic for new introduced fields
- * (look at {@link Object#clone()} for the reference). The same applies to input
- * class since it also should be cloneable.
+ * One needs to define item class for new problem extending {@link BaseItem}.
+ * Items are shared between input clones, so item class must be immutable. If
+ * input class introduces new mutable fields then one needs to override
+ * {@link #clone()} and implement clone logic for them (look at
+ * {@link Object#clone()} for the reference).
  * <p>
  * Input transformation changes existing instance of input according to the
  * given mapping. The most common use case for this is to permute items.
  * However, transformation can be more tricky like replacing second item by
  * first item ( the corresponding mapping is {@code transformation = (1, 1, 3,
- * 4, ...)}). Default implementation of {@link #transform(List)} is simply
- * applying transformation to the list of items. It should be sufficient for
- * most (if not all) input classes.
+ * 4, ...)}). Transformations are composed and kept as pending transformation,
+ * {@link #getItems()} returns view of the original items. Pending
+ * transformation is applied to the list of items by
+ * {@link #transformItems(List, int[])} only when subclass requests items by
+ * {@link #itemsList()}. Default implementation of
+ * {@link #transformItems(List, int[])} should be sufficient for most input
+ * classes, the ones storing items in specialized lists override it.
  *
  * @param <T> item class
  *
@@ -79,9 +92,32 @@ public abstract class BaseInput<T extends BaseItem> implements BaseCloneable {
   /** Identifier of this input. */
   private final String identifier;
 
-  /** List of items. */
+  /**
+   * List of items. The list is never modified in place, so it can be shared
+   * between clones.
+   */
   private List<T> items;
 
+  /**
+   * Pending transformation of {@link #items} or {@code null} if there is no
+   * one. The array is never modified in place, so it can be shared between
+   * clones.
+   */
+  private int[] transformation;
+
+  /** Whether this input is read-only. */
+  private boolean readOnly;
+
+  /** Cached content hash, it is valid only if {@link #contentHashed} is set. */
+  private long contentHash;
+
+  /**
+   * Whether {@link #contentHash} is calculated for current content. It is
+   * volatile and set after the hash, so read-only input shared by several
+   * threads never exposes partially written hash.
+   */
+  private volatile boolean contentHashed;
+
   /**
    * Constructs input instance.
    *
@@ -92,6 +128,7 @@ public abstract class BaseInput<T extends BaseItem> implements BaseCloneable {
     validateIdentifier(identifier);
     this.identifier = identifier;
     this.items = CollectionUtil.deepCopyOf(items);
+    this.readOnly = false;
   }
 
   /**
@@ -104,6 +141,24 @@ public abstract class BaseInput<T extends BaseItem> implements BaseCloneable {
     validateIdentifier(identifier);
     this.identifier = identifier;
     this.items = CollectionUtil.deepCopyOf(items);
+    this.readOnly = false;
+  }
+
+  /**
+   * Constructs input instance that takes ownership of the given list of
+   * {@code items} without copying it. This allows subclasses to store items in
+   * specialized lists (look at
+   * {@link com.googlecode.caparf.framework.items.RectangleSet}). The list must
+   * never be modified.
+   *
+   * @param identifier input identifier
+   * @param items input items
+   */
+  protected BaseInput(String identifier, List<T> items) {
+    validateIdentifier(identifier);
+    this.identifier = identifier;
+    this.items = items;
+    this.readOnly = false;
   }
 
   /** Checks that {@code identifier} is valid. */
@@ -136,34 +191,88 @@ public abstract class BaseInput<T extends BaseItem> implements BaseCloneable {
    * @return number of items in the input
    */
   public int getItemsCount() {
-    return items.size();
+    return (transformation != null) ? transformation.length : items.size();
   }
 
   /**
    * Returns all input items. Order of items matters. Resulting list is
    * unmodifiable, i.e. exception will be thrown if one tries to add or remove
-   * elements from it. However, items contained in a list are mutable.
+   * elements from it. Items are shared between clones of this input and must
+   * not be modified.
    *
    * @return unmodifiable list of items
    */
   public List<T> getItems() {
+    if (transformation != null) {
+      return CollectionUtil.transformedView(items, transformation);
+    }
     return Collections.unmodifiableList(items);
   }
 
+  /**
+   * Returns list of items as it is stored by this input for subclasses that
+   * need access to specialized list of items. Pending transformation is
+   * applied first. The list must not be modified.
+   *
+   * @return list of items
+   */
+  protected final List<T> itemsList() {
+    applyTransformation();
+    return items;
+  }
+
+  /** Applies pending transformation to the list of items. */
+  private void applyTransformation() {
+    if (transformation != null) {
+      items = transformItems(items, transformation);
+      transformation = null;
+    }
+  }
+
+  /**
+   * @return whether this input is read-only
+   */
+  public final boolean isReadOnly() {
+    return readOnly;
+  }
+
+  /**
+   * Makes this input read-only. Read-only input can be safely shared by
+   * several algorithms and verifiers, any attempt to transform it will throw
+   * {@link UnsupportedOperationException}. Clones of read-only input are not
+   * read-only, so algorithm that needs to transform input should transform its
+   * clone. Pending transformation is applied, so that read-only input is never
+   * changed by its readers.
+   */
+  public final void makeReadOnly() {
+    applyTransformation();
+    readOnly = true;
+  }
+
+  /** Checks that this input can be modified. */
+  protected final void checkWritable() {
+    if (readOnly) {
+      throw new UnsupportedOperationException(
+          "Input " + identifier + " is read-only, transform its clone instead");
+    }
+  }
+
   /**
    * Transforms input according to {@code transformation}. Transformed input
    * will have exactly the same number of items as the given {@code
    * transformation}. {@code i}-th item in transformed input will be equal to
-   * {@code transformation.get(i)}-th item in original input.
+   * {@code transformation.get(i)}-th item in original input. This method
+   * delegates to {@link #transform(int[])}.
    *
    * @param transformation items transformation
+   * @throws UnsupportedOperationException if input is read-only
    */
   public void transform(List<Integer> transformation) {
-    List<T> transformedItems = new ArrayList<T>(transformation.size());
-    for (int itemId : transformation) {
-      transformedItems.add(ObjectUtil.safeClone(items.get(itemId)));
+    int[] array = new int[transformation.size()];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = transformation.get(i);
     }
-    items = transformedItems;
+    transform(array);
   }
 
   /**
@@ -172,15 +281,81 @@ public abstract class BaseInput<T extends BaseItem> implements BaseCloneable {
    * transformation}. {@code i}-th item in transformed input will be equal to
    * {@code transformation[i]}-th item in original input. Use this function to
    * gain extra performance (comparing to {@link #transform(List)}).
+   * <p>
+   * Only the transformation is stored, it is composed with pending one if any.
+   * Items are not copied until {@link #itemsList()} is called.
    *
    * @param transformation items transformation
+   * @throws UnsupportedOperationException if input is read-only
+   * @throws IndexOutOfBoundsException if {@code transformation} refers to
+   *           missing item
    */
   public void transform(int[] transformation) {
+    checkWritable();
+    this.transformation = CollectionUtil.composeTransformations(this.transformation,
+        transformation, getItemsCount());
+    contentHashed = false;
+  }
+
+  /**
+   * Returns hash of input content, i.e. of items and problem parameters but
+   * not of identifier. Content-equal inputs have equal content hashes. Hash is
+   * calculated once and cached until input is transformed.
+   *
+   * @return content hash of this input
+   */
+  public final long contentHash() {
+    if (!contentHashed) {
+      contentHash = calculateContentHash();
+      contentHashed = true;
+    }
+    return contentHash;
+  }
+
+  /**
+   * Calculates hash of input content. Default implementation combines class
+   * name and hash codes of items. Subclasses introducing problem parameters
+   * must override it along with {@link #contentEquals(BaseInput)}.
+   *
+   * @return content hash of this input
+   */
+  protected long calculateContentHash() {
+    long hash = getClass().getName().hashCode();
+    for (T item : getItems()) {
+      hash = 31 * hash + item.hashCode();
+    }
+    return hash;
+  }
+
+  /**
+   * Returns whether this input has the same content as {@code other} input,
+   * i.e. whether they are instances of the same class with equal items and
+   * problem parameters. Identifiers are not compared. Default implementation
+   * compares items by {@link Object#equals(Object)}.
+   *
+   * @param other input to compare with
+   * @return whether inputs have the same content
+   */
+  public boolean contentEquals(BaseInput<?> other) {
+    return other != null && getClass() == other.getClass() && getItems().equals(other.getItems());
+  }
+
+  /**
+   * Returns new list of items transformed according to {@code transformation}.
+   * It is called to apply pending transformation. Since items are immutable,
+   * default implementation simply puts the same items into new list.
+   * Subclasses storing items in specialized lists should override this method.
+   *
+   * @param items current list of items, must not be modified
+   * @param transformation items transformation
+   * @return transformed list of items
+   */
+  protected List<T> transformItems(List<T> items, int[] transformation) {
     List<T> transformedItems = new ArrayList<T>(transformation.length);
     for (int i = 0; i < transformation.length; i++) {
-      transformedItems.add(ObjectUtil.safeClone(items.get(transformation[i])));
+      transformedItems.add(items.get(transformation[i]));
     }
-    items = transformedItems;
+    return transformedItems;
   }
 
   @Override
@@ -188,7 +363,9 @@ public abstract class BaseInput<T extends BaseItem> implements BaseCloneable {
     try {
       @SuppressWarnings("unchecked")
       BaseInput<T> clone = (BaseInput<T>) super.clone();
-      clone.items = CollectionUtil.deepCopyOf(items);
+      // Items list and transformation are never modified in place, so it is
+      // safe to share them
+      clone.readOnly = false;
       return clone;
     } catch (CloneNotSupportedException e) {
       // this shouldn't happen, since we are Cloneable
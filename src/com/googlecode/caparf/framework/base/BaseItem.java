@@ -20,7 +20,9 @@
 package com.googlecode.caparf.framework.base;
 
 /**
- * Base class for cutting-and-packing algorithm input's item.
+ * Base class for cutting-and-packing algorithm input's item. Items are shared
+ * between clones of input (look at {@link BaseInput}), so subclasses must be
+ * immutable.
  *
  * @author denis.nsc@gmail.com (Denis Nazarov)
  */
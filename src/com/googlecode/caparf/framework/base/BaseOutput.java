@@ -38,25 +38,35 @@ import com.googlecode.caparf.framework.util.ObjectUtil;
  * <li><b>Transformation</b>. Outputs can be transformed according to the given
  * transformation which is simply a many-to-one mapping between new and original
  * item placements. This can be extremely useful for various genetic algorithms.
+ * Transformation is lazy: transformed output is a view of the original item
+ * placements until they are requested in a specialized form.
  * <li><b>Cloning</b>. Outputs are clonable.
  * </ol>
  * <p>
  * Concrete output class must implement {@link #calculateObjectiveFunction()}
  * that will return the value of objective function to <b>minimize</b>. If the
  * objective for some problem is to maximize {@code f(...)} then one may return
- * {@code -f(...)} as value of objective function to minimize. <i>Note</i>, that
- * objective function is calculated every call. One can use helper class
+ * {@code -f(...)} as value of objective function to minimize. Output classes
+ * may cache the value of objective function, but they must invalidate it when
+ * output is transformed. One can use helper class
  * {@link ObjectiveComparator} to compare values of objective functions
- * regardless of value type.
+ * regardless of value type. Hot paths should use primitive variants
+ * {@link #calculateObjectiveFunctionAsDouble()} and
+ * {@link #calculateObjectiveFunctionAsLong()} that output classes override to
+ * avoid boxing.
  * <p>
  * Output transformation changes existing instance of output according to the
  * given mapping. The most common use case for this is to permute item
  * placements. However, transformation can be more tricky like replacing second
  * item placement by first item placement ( the corresponding mapping is
- * {@code transformation = (1, 1, 3, 4, ...)}). Default implementation of
- * {@link #transform(List)} is simply applying transformation to the list of
- * item placements. It should be sufficient for most (if not all) output
- * classes.
+ * {@code transformation = (1, 1, 3, 4, ...)}). Transformations are composed and
+ * kept as pending transformation, {@link #getPlacements()} returns view of the
+ * original item placements. Pending transformation is applied to the list of
+ * item placements by {@link #transformPlacements(List, int[])} only when
+ * subclass requests item placements by {@link #placementsList()}. Default
+ * implementation of {@link #transformPlacements(List, int[])} should be
+ * sufficient for most output classes, the ones storing item placements in
+ * specialized lists override it.
  *
  * @param <T> item class
  *
@@ -68,7 +78,14 @@ import com.googlecode.caparf.framework.util.ObjectUtil;
 public abstract class BaseOutput<T extends BaseItemPlacement> implements BaseCloneable {
 
   /** List of item placements. */
-  protected List<T> placements;
+  private List<T> placements;
+
+  /**
+   * Pending transformation of {@link #placements} or {@code null} if there is
+   * no one. The array is never modified in place, so it can be shared between
+   * clones.
+   */
+  private int[] transformation;
 
   /**
    * Constructs output instance.
@@ -90,6 +107,19 @@ public abstract class BaseOutput<T extends BaseItemPlacement> implements BaseClo
     this.placements = CollectionUtil.deepCopyOf(placements);
   }
 
+  /**
+   * Constructs output instance that takes ownership of the given list of
+   * {@code placements} if {@code copy} is {@code false}. This allows subclasses
+   * to store item placements in specialized lists (look at
+   * {@link com.googlecode.caparf.framework.items.RectanglePlacementList}).
+   *
+   * @param placements item placements
+   * @param copy whether to deep copy {@code placements}
+   */
+  protected BaseOutput(List<T> placements, boolean copy) {
+    this.placements = copy ? CollectionUtil.deepCopyOf(placements) : placements;
+  }
+
   /**
    * Calculates value of objective function to minimize.
    *
@@ -97,41 +127,87 @@ public abstract class BaseOutput<T extends BaseItemPlacement> implements BaseClo
    */
   public abstract Number calculateObjectiveFunction();
 
+  /**
+   * Calculates value of objective function to minimize as {@code double}.
+   * Default implementation unboxes {@link #calculateObjectiveFunction()}.
+   *
+   * @return objective function value
+   */
+  public double calculateObjectiveFunctionAsDouble() {
+    return calculateObjectiveFunction().doubleValue();
+  }
+
+  /**
+   * Calculates value of objective function to minimize as {@code long}. It
+   * makes sense only for integral objective functions. Default implementation
+   * unboxes {@link #calculateObjectiveFunction()}.
+   *
+   * @return objective function value
+   */
+  public long calculateObjectiveFunctionAsLong() {
+    return calculateObjectiveFunction().longValue();
+  }
+
   /**
    * @return number of item placements in the output
    */
   public int getPlacementsCount() {
-    return placements.size();
+    return (transformation != null) ? transformation.length : placements.size();
   }
 
   /**
    * Returns item placements. Order of elements matters. More precisely, the
    * order of elements corresponds to the order of items in the input. Resulting
    * list is unmodifiable, i.e. exception will be thrown if one tries to add or
-   * remove elements from it. However, item placements contained in a list are
-   * mutable.
+   * remove elements from it. Outputs storing item placements in specialized
+   * lists may create placement objects on demand, so changes of such objects
+   * are not reflected in the output.
    *
    * @return unmodifiable list of item placements
    */
   public List<T> getPlacements() {
+    if (transformation != null) {
+      return CollectionUtil.transformedView(placements, transformation);
+    }
     return Collections.unmodifiableList(placements);
   }
 
+  /**
+   * Returns list of item placements as it is stored by this output for
+   * subclasses that need access to specialized list of item placements.
+   * Pending transformation is applied first.
+   *
+   * @return list of item placements
+   */
+  protected final List<T> placementsList() {
+    applyTransformation();
+    return placements;
+  }
+
+  /** Applies pending transformation to the list of item placements. */
+  private void applyTransformation() {
+    if (transformation != null) {
+      placements = transformPlacements(placements, transformation);
+      transformation = null;
+    }
+  }
+
   /**
    * Transforms output according to {@code transformation}. Transformed output
    * will have exactly the same number of item placements as the given {@code
    * transformation}. {@code i}-th item placement in transformed output will be
    * equal to {@code transformation.get(i)}-th item placement in original
-   * output.
+   * output. This method delegates to {@link #transform(int[])}, so subclasses
+   * need to override only the latter.
    *
    * @param transformation items transformation
    */
   public void transform(List<Integer> transformation) {
-    List<T> transformedPlacements = new ArrayList<T>(transformation.size());
-    for (int placementId : transformation) {
-      transformedPlacements.add(ObjectUtil.safeClone(placements.get(placementId)));
+    int[] array = new int[transformation.size()];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = transformation.get(i);
     }
-    placements = transformedPlacements;
+    transform(array);
   }
 
   /**
@@ -141,15 +217,47 @@ public abstract class BaseOutput<T extends BaseItemPlacement> implements BaseClo
    * equal to {@code transformation[i]}-th item placement in original
    * output. Use this function to gain extra performance (comparing to
    * {@link #transform(List)}).
+   * <p>
+   * Only the transformation is stored, it is composed with pending one if any.
+   * Item placements are not copied until {@link #placementsList()} is called.
    *
    * @param transformation items transformation
+   * @throws IndexOutOfBoundsException if {@code transformation} refers to
+   *           missing item placement
    */
   public void transform(int[] transformation) {
+    this.transformation = CollectionUtil.composeTransformations(this.transformation,
+        transformation, getPlacementsCount());
+  }
+
+  /**
+   * Returns new list of item placements transformed according to {@code
+   * transformation}. It is called to apply pending transformation. Default
+   * implementation puts clones of item placements into new list. Subclasses
+   * storing item placements in specialized lists should override this method
+   * together with {@link #copyPlacements(List)}.
+   *
+   * @param placements current list of item placements
+   * @param transformation items transformation
+   * @return transformed list of item placements
+   */
+  protected List<T> transformPlacements(List<T> placements, int[] transformation) {
     List<T> transformedPlacements = new ArrayList<T>(transformation.length);
     for (int i = 0; i < transformation.length; i++) {
       transformedPlacements.add(ObjectUtil.safeClone(placements.get(transformation[i])));
     }
-    placements = transformedPlacements;
+    return transformedPlacements;
+  }
+
+  /**
+   * Returns copy of the given list of item placements for a clone of this
+   * output. Default implementation deep copies the list.
+   *
+   * @param placements current list of item placements
+   * @return copy of item placements
+   */
+  protected List<T> copyPlacements(List<T> placements) {
+    return CollectionUtil.deepCopyOf(placements);
   }
 
   @Override
@@ -157,7 +265,9 @@ public abstract class BaseOutput<T extends BaseItemPlacement> implements BaseClo
     try {
       @SuppressWarnings("unchecked")
       BaseOutput<T> clone = (BaseOutput<T>) super.clone();
-      clone.placements = CollectionUtil.deepCopyOf(placements);
+      // Pending transformation is never modified in place, so it is safe to
+      // share it
+      clone.placements = copyPlacements(placements);
       return clone;
     } catch (CloneNotSupportedException e) {
       // this shouldn't happen, since we are Cloneable
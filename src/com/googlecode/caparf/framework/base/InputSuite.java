@@ -19,33 +19,119 @@
 
 package com.googlecode.caparf.framework.base;
 
+import java.util.AbstractCollection;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.googlecode.caparf.framework.util.InputContentMap;
 
 /**
- * Defines suite for algorithm inputs.
+ * Defines suite for algorithm inputs. Suite consists of inputs that are added
+ * explicitly and of generated inputs (look at
+ * {@link #addGenerated(InputGenerator, long, int)}). Generated inputs are not
+ * stored by the suite, they are generated on demand while the suite is
+ * iterated, so suite of millions of generated inputs takes constant memory as
+ * long as its inputs are not kept by the caller.
  *
  * @author denis.nsc@gmail.com (Denis Nazarov)
  */
-public class InputSuite<I extends BaseInput<? extends BaseItem>> {
+public class InputSuite<I extends BaseInput<? extends BaseItem>> implements Iterable<I> {
 
-  /** List of algorithm inputs in this suite. */
-  private ArrayList<I> algorithmInputs;
+  /**
+   * Generator of algorithm inputs by seed. Generator must return equal inputs
+   * for equal seeds and inputs with distinct identifiers for distinct seeds.
+   *
+   * @param <I> algorithm input class
+   */
+  public interface InputGenerator<I> {
+
+    /**
+     * Generates algorithm input by the given {@code seed}.
+     *
+     * @param seed seed of input
+     * @return generated input
+     */
+    I generateInput(long seed);
+  }
+
+  /**
+   * Parts of this suite in order. Each part is either list of explicitly added
+   * inputs owned by this suite or immutable {@link GeneratedInputs}.
+   */
+  private ArrayList<Collection<? extends I>> parts;
 
   /** Creates empty input suite. */
   public InputSuite() {
-    algorithmInputs = new ArrayList<I>();
+    parts = new ArrayList<Collection<? extends I>>();
+  }
+
+  /**
+   * Returns iterator over all algorithm inputs in this suite. Generated inputs
+   * are generated by the iterator, so each iteration produces new instances
+   * of them.
+   *
+   * @return iterator over algorithm inputs
+   */
+  @Override
+  public Iterator<I> iterator() {
+    return new SuiteIterator();
   }
 
   /**
-   * Returns read-only list of all algorithm inputs in this suite.
+   * Returns read-only list of all algorithm inputs in this suite. All generated
+   * inputs are generated and kept by the list, so prefer {@link #iterator()}
+   * for large suites.
    *
    * @return all algorithm inputs in this suite
    */
   public List<I> getAll() {
-    return Collections.unmodifiableList(algorithmInputs);
+    ArrayList<I> inputs = new ArrayList<I>(size());
+    for (I input : this) {
+      inputs.add(input);
+    }
+    return Collections.unmodifiableList(inputs);
+  }
+
+  /**
+   * @return number of algorithm inputs in this suite
+   */
+  public int size() {
+    int size = 0;
+    for (Collection<? extends I> part : parts) {
+      size += part.size();
+    }
+    return size;
+  }
+
+  /**
+   * Returns whether this suite has generated inputs, i.e. whether its inputs
+   * are produced on demand rather than stored.
+   *
+   * @return whether this suite has generated inputs
+   */
+  public boolean isStreaming() {
+    for (Collection<? extends I> part : parts) {
+      if (part instanceof GeneratedInputs<?>) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Returns list part to which explicitly added inputs are appended. */
+  private List<I> lastListPart() {
+    if (!parts.isEmpty() && !(parts.get(parts.size() - 1) instanceof GeneratedInputs<?>)) {
+      @SuppressWarnings("unchecked")
+      List<I> part = (List<I>) parts.get(parts.size() - 1);
+      return part;
+    }
+    List<I> part = new ArrayList<I>();
+    parts.add(part);
+    return part;
   }
 
   /**
@@ -55,18 +141,26 @@ public class InputSuite<I extends BaseInput<? extends BaseItem>> {
    * @return this
    */
   public InputSuite<I> add(I input) {
-    algorithmInputs.add(input);
+    lastListPart().add(input);
     return this;
   }
 
   /**
-   * Adds all algorithm inputs in the given suite to this suite
+   * Adds all algorithm inputs in the given suite to this suite. Generated
+   * inputs of the given suite are added as generated ones, i.e. they are not
+   * generated by this method.
    *
    * @param inputs input suite to add
    * @return this
    */
   public InputSuite<I> addAll(InputSuite<? extends I> inputs) {
-    algorithmInputs.addAll(inputs.getAll());
+    for (Collection<? extends I> part : inputs.parts) {
+      if (part instanceof GeneratedInputs<?>) {
+        parts.add(part);
+      } else {
+        lastListPart().addAll(part);
+      }
+    }
     return this;
   }
 
@@ -77,7 +171,7 @@ public class InputSuite<I extends BaseInput<? extends BaseItem>> {
    * @return this
    */
   public InputSuite<I> addAll(Collection<? extends I> inputs) {
-    algorithmInputs.addAll(inputs);
+    lastListPart().addAll(inputs);
     return this;
   }
 
@@ -88,7 +182,118 @@ public class InputSuite<I extends BaseInput<? extends BaseItem>> {
    * @return this
    */
   public InputSuite<I> addAll(I... inputs) {
-    Collections.addAll(algorithmInputs, inputs);
+    Collections.addAll(lastListPart(), inputs);
+    return this;
+  }
+
+  /**
+   * Adds {@code count} algorithm inputs generated by the given
+   * {@code generator} with seeds {@code firstSeed}, {@code firstSeed + 1} and
+   * so on. Inputs are generated on demand while the suite is iterated.
+   *
+   * @param generator generator of inputs
+   * @param firstSeed seed of the first input
+   * @param count number of inputs to generate
+   * @return this
+   */
+  public InputSuite<I> addGenerated(InputGenerator<? extends I> generator, long firstSeed,
+      int count) {
+    if (count < 0) {
+      throw new IllegalArgumentException("Number of inputs must be non-negative");
+    }
+    parts.add(new GeneratedInputs<I>(generator, firstSeed, count));
+    return this;
+  }
+
+  /**
+   * Removes algorithm inputs having the same content as some preceding input
+   * of the suite (look at {@link BaseInput#contentEquals(BaseInput)}), so that
+   * the same instance is not solved several times under different
+   * identifiers. Generated inputs are generated and stored by the suite.
+   *
+   * @return this
+   */
+  public InputSuite<I> removeDuplicates() {
+    InputContentMap<I, I> distinctInputs = new InputContentMap<I, I>();
+    ArrayList<I> inputs = new ArrayList<I>();
+    for (I input : this) {
+      if (!distinctInputs.containsKey(input)) {
+        distinctInputs.put(input, input);
+        inputs.add(input);
+      }
+    }
+    parts = new ArrayList<Collection<? extends I>>();
+    parts.add(inputs);
     return this;
   }
+
+  /** Inputs generated on demand by generator with consecutive seeds. */
+  private static final class GeneratedInputs<I> extends AbstractCollection<I> {
+    private final InputGenerator<? extends I> generator;
+    private final long firstSeed;
+    private final int count;
+
+    public GeneratedInputs(InputGenerator<? extends I> generator, long firstSeed, int count) {
+      this.generator = generator;
+      this.firstSeed = firstSeed;
+      this.count = count;
+    }
+
+    @Override
+    public Iterator<I> iterator() {
+      return new Iterator<I>() {
+        private int generated = 0;
+
+        @Override
+        public boolean hasNext() {
+          return generated < count;
+        }
+
+        @Override
+        public I next() {
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          }
+          return generator.generateInput(firstSeed + generated++);
+        }
+
+        @Override
+        public void remove() {
+          throw new UnsupportedOperationException();
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return count;
+    }
+  }
+
+  /** Iterator over inputs of all parts of the suite. */
+  private class SuiteIterator implements Iterator<I> {
+    private final Iterator<Collection<? extends I>> partsIterator = parts.iterator();
+    private Iterator<? extends I> partIterator = Collections.<I>emptyList().iterator();
+
+    @Override
+    public boolean hasNext() {
+      while (!partIterator.hasNext() && partsIterator.hasNext()) {
+        partIterator = partsIterator.next().iterator();
+      }
+      return partIterator.hasNext();
+    }
+
+    @Override
+    public I next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return partIterator.next();
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
 }
@@ -19,14 +19,19 @@
 
 package com.googlecode.caparf.framework.base;
 
+import java.io.Serializable;
 import java.util.Comparator;
 
 /**
- * Comparator for objective function values.
+ * Comparator for objective function values. Values are compared with relative
+ * error {@link #EPS}. Use {@link #compare(double, double)} on hot paths to
+ * avoid boxing of values.
  *
  * @author denis.nsc@gmail.com (Denis Nazarov)
  */
-public class ObjectiveComparator implements Comparator<Number> {
+public class ObjectiveComparator implements Comparator<Number>, Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   /** Largest relative error in comparing doubles. */
   public static final double EPS = 1e-9;
@@ -44,11 +49,27 @@ public class ObjectiveComparator implements Comparator<Number> {
     return singleton;
   }
 
+  /** Preserves singleton property on deserialization. */
+  private Object readResolve() {
+    return singleton;
+  }
+
   @Override
   public int compare(Number l, Number r) {
-    double lvalue = l.doubleValue();
-    double rvalue = r.doubleValue();
-    double diff = (lvalue - rvalue) / (Math.abs(lvalue) + Math.abs(rvalue));
-    return (diff > EPS) ? 1 : ((diff < -EPS) ? -1 : 0);
+    return compare(l.doubleValue(), r.doubleValue());
+  }
+
+  /**
+   * Compares the given objective function values.
+   *
+   * @param l first value
+   * @param r second value
+   * @return negative integer, zero, or a positive integer as the first value
+   *         is less than, equal to, or greater than the second one
+   */
+  public int compare(double l, double r) {
+    double diff = l - r;
+    double tolerance = EPS * (Math.abs(l) + Math.abs(r));
+    return (diff > tolerance) ? 1 : ((diff < -tolerance) ? -1 : 0);
   }
 }
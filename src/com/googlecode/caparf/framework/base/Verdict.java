@@ -47,6 +47,9 @@ public class Verdict {
   /** Information about algorithm execution. */
   private RunInformation runInformation;
 
+  /** Objective function value of valid output. */
+  private Number objective;
+
   /**
    * @return output verification result
    */
@@ -95,6 +98,23 @@ public class Verdict {
     this.runInformation = runInformation;
   }
 
+  /**
+   * @return objective function value of valid output or null if output is not
+   *         valid
+   */
+  public Number getObjective() {
+    return objective;
+  }
+
+  /**
+   * Sets objective function value of valid output.
+   *
+   * @param objective objective function value
+   */
+  public void setObjective(Number objective) {
+    this.objective = objective;
+  }
+
   @Override
   public String toString() {
     return getResult() + ": " + getComment();
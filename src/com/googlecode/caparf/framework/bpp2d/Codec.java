@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2010 Denis Nazarov <denis.nsc@gmail.com>.
+ *
+ * This file is part of caparf (http://code.google.com/p/caparf/).
+ *
+ * caparf is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * caparf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with caparf. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.caparf.framework.bpp2d;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import com.googlecode.caparf.framework.base.BaseCodec;
+import com.googlecode.caparf.framework.util.CodecUtil;
+
+/**
+ * Binary codec of inputs and outputs for 2 Dimensional Bin Packing Problem.
+ * Input is encoded as identifier, bin width and height and rectangle items.
+ * Output is encoded as rectangle item bin-placements.
+ *
+ * @author denis.nsc@gmail.com (Denis Nazarov)
+ */
+public class Codec implements BaseCodec<Input, Output> {
+
+  @Override
+  public void writeInput(DataOutput out, Input input) throws IOException {
+    out.writeUTF(input.getIdentifier());
+    out.writeInt(input.getBinWidth());
+    out.writeInt(input.getBinHeight());
+    CodecUtil.writeRectangles(out, input.getRectangles());
+  }
+
+  @Override
+  public Input readInput(DataInput in) throws IOException {
+    String identifier = in.readUTF();
+    int binWidth = in.readInt();
+    int binHeight = in.readInt();
+    return new Input(CodecUtil.readRectangles(in), binWidth, binHeight, identifier);
+  }
+
+  @Override
+  public void writeOutput(DataOutput out, Output output) throws IOException {
+    CodecUtil.writeRectangleBinPlacements(out, output.getPlacementList());
+  }
+
+  @Override
+  public Output readOutput(DataInput in, Input input) throws IOException {
+    return new Output(CodecUtil.readRectangleBinPlacements(in));
+  }
+}
@@ -23,13 +23,14 @@ import java.util.List;
 
 import com.googlecode.caparf.framework.base.BaseInput;
 import com.googlecode.caparf.framework.items.Rectangle;
+import com.googlecode.caparf.framework.items.RectangleInput;
 
 /**
  * Input for 2 Dimensional Bind Packing Problem.
  *
  * @author denis.nsc@gmail.com (Denis Nazarov)
  */
-public class Input extends BaseInput<Rectangle> {
+public class Input extends RectangleInput {
 
   /** Width of bin. */
   private final int binWidth;
@@ -82,4 +83,15 @@ public class Input extends BaseInput<Rectangle> {
   public int getBinHeight() {
     return binHeight;
   }
+
+  @Override
+  protected long calculateContentHash() {
+    return 31 * (31 * super.calculateContentHash() + binWidth) + binHeight;
+  }
+
+  @Override
+  public boolean contentEquals(BaseInput<?> other) {
+    return super.contentEquals(other) && binWidth == ((Input) other).binWidth &&
+        binHeight == ((Input) other).binHeight;
+  }
 }
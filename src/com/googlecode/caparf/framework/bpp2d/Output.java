@@ -23,6 +23,7 @@ import java.util.List;
 
 import com.googlecode.caparf.framework.base.BaseOutput;
 import com.googlecode.caparf.framework.items.RectangleBinPlacement;
+import com.googlecode.caparf.framework.items.RectangleBinPlacementList;
 
 /**
  * Output for 2 Dimensional Bin Packing Problem.
@@ -31,6 +32,29 @@ import com.googlecode.caparf.framework.items.RectangleBinPlacement;
  */
 public class Output extends BaseOutput<RectangleBinPlacement> {
 
+  /** Cached maximal bin number, it is valid only if {@link #cachedVersion} is valid. */
+  private int maximalBinNumber;
+
+  /**
+   * Version of placements list for which {@link #maximalBinNumber} is valid or
+   * {@code -1} if maximal bin number is not cached.
+   */
+  private long cachedVersion = -1;
+
+  /**
+   * Constructs output for 2 Dimensional Bin Packing Problem with all rectangle
+   * items placed at the origin of the first bin. Algorithms can build the
+   * output by {@link #setPlacement(int, int, int, int)}, so that number of bins
+   * is maintained incrementally.
+   *
+   * @param placementsCount number of rectangle items
+   */
+  public Output(int placementsCount) {
+    super(new RectangleBinPlacementList(placementsCount), false);
+    maximalBinNumber = 0;
+    cachedVersion = getPlacementList().getVersion();
+  }
+
   /**
    * Constructs output for 2 Dimensional Bin Packing Problem. Placements is the
    * ordered list of bottom-left points and bin number of corresponding
@@ -39,7 +63,7 @@ public class Output extends BaseOutput<RectangleBinPlacement> {
    * @param placements rectangle item placements
    */
   public Output(List<RectangleBinPlacement> placements) {
-    super(placements);
+    super(new RectangleBinPlacementList(placements), false);
   }
 
   /**
@@ -50,25 +74,82 @@ public class Output extends BaseOutput<RectangleBinPlacement> {
    * @param placements rectangle item bin-placements
    */
   public Output(RectangleBinPlacement[] placements) {
-    super(placements);
+    super(new RectangleBinPlacementList(placements), false);
   }
 
   @Override
   public Number calculateObjectiveFunction() {
-    int maximalBinNumber = 0;
-    for (RectangleBinPlacement placement : getPlacements()) {
-      maximalBinNumber = Math.max(maximalBinNumber, placement.getBinNumber());
+    return (int) calculateObjectiveFunctionAsLong();
+  }
+
+  @Override
+  public double calculateObjectiveFunctionAsDouble() {
+    return calculateObjectiveFunctionAsLong();
+  }
+
+  /**
+   * Returns number of used bins. It is calculated once and cached until
+   * placements are modified or output is transformed.
+   */
+  @Override
+  public long calculateObjectiveFunctionAsLong() {
+    RectangleBinPlacementList placements = getPlacementList();
+    if (cachedVersion != placements.getVersion()) {
+      maximalBinNumber = 0;
+      for (int i = 0; i < placements.size(); i++) {
+        maximalBinNumber = Math.max(maximalBinNumber, placements.getBinNumber(i));
+      }
+      cachedVersion = placements.getVersion();
     }
     return maximalBinNumber + 1;
   }
 
+  /**
+   * Places {@code i}-th rectangle item at the given point of the given bin.
+   * Unlike modification of {@link #getPlacementList()} it updates cached number
+   * of bins instead of invalidating it, unless the last bin may become empty.
+   *
+   * @param i index of rectangle item
+   * @param x {@code x}-coordinate of rectangle lower-left point
+   * @param y {@code y}-coordinate of rectangle lower-left point
+   * @param binNumber number of bin into which rectangle is packed
+   */
+  public void setPlacement(int i, int x, int y, int binNumber) {
+    RectangleBinPlacementList placements = getPlacementList();
+    boolean cached = cachedVersion == placements.getVersion();
+    int oldBinNumber = placements.getBinNumber(i);
+    placements.set(i, x, y, binNumber);
+    if (cached && (binNumber >= maximalBinNumber || oldBinNumber < maximalBinNumber)) {
+      maximalBinNumber = Math.max(maximalBinNumber, binNumber);
+      cachedVersion = placements.getVersion();
+    }
+  }
+
+  /**
+   * Returns item placements of this output. Unlike {@link #getPlacements()} it
+   * gives access to coordinates and bin numbers without creating placement
+   * objects.
+   *
+   * @return rectangle item bin-placements
+   */
+  public RectangleBinPlacementList getPlacementList() {
+    return (RectangleBinPlacementList) placementsList();
+  }
+
   @Override
-  public void transform(List<Integer> transformation) {
-    super.transform(transformation);
+  protected List<RectangleBinPlacement> transformPlacements(List<RectangleBinPlacement> placements,
+      int[] transformation) {
+    return ((RectangleBinPlacementList) placements).transform(transformation);
+  }
+
+  @Override
+  protected List<RectangleBinPlacement> copyPlacements(List<RectangleBinPlacement> placements) {
+    return ((RectangleBinPlacementList) placements).copy();
   }
 
   @Override
   public void transform(int[] transformation) {
     super.transform(transformation);
+    cachedVersion = -1;
   }
 }
@@ -19,22 +19,54 @@
 
 package com.googlecode.caparf.framework.bpp2d;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
-import com.googlecode.caparf.framework.base.BaseOutputVerifier;
+import com.googlecode.caparf.framework.base.BaseIncrementalOutputVerifier;
 import com.googlecode.caparf.framework.base.Verdict;
 import com.googlecode.caparf.framework.base.Verdict.Result;
-import com.googlecode.caparf.framework.items.Rectangle;
-import com.googlecode.caparf.framework.items.RectangleBinPlacement;
+import com.googlecode.caparf.framework.items.RectangleBinPlacementList;
+import com.googlecode.caparf.framework.items.RectangleSet;
+import com.googlecode.caparf.framework.util.IntersectionUtil;
+import com.googlecode.caparf.framework.util.RectangleIndex;
 
 /**
- * Verifier of output for 2 Dimensional Bin Packing Problem.
+ * Verifier of output for 2 Dimensional Bin Packing Problem. Rectangle items
+ * are grouped by bins, so that intersection is checked only inside bins, and
+ * outputs with thousands of bins are checked by several threads.
  *
  * @param <O> algorithm output
  *
  * @author denis.nsc@gmail.com (Denis Nazarov)
  */
-public class OutputVerifier implements BaseOutputVerifier<Input, Output> {
+public class OutputVerifier implements BaseIncrementalOutputVerifier<Input, Output> {
+
+  /** Minimal number of bins per thread checking bins. */
+  private static final int MIN_BINS_PER_THREAD = 256;
+
+  /** Executor shared by all verifiers, created on demand. */
+  private static ExecutorService executor = null;
+
+  private static synchronized ExecutorService getExecutor() {
+    if (executor == null) {
+      executor = Executors.newCachedThreadPool(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread thread = new Thread(r, "caparf-bpp2d-verifier");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    return executor;
+  }
 
   @Override
   public Verdict verify(Input input, Output output) {
@@ -57,50 +89,290 @@ public class OutputVerifier implements BaseOutputVerifier<Input, Output> {
 
 
     // Verifies that each rectangle item fits into the bin
-    List<Rectangle> rectangles = input.getItems();
-    List<RectangleBinPlacement> placements = output.getPlacements();
+    RectangleSet rectangles = input.getRectangles();
+    RectangleBinPlacementList placements = output.getPlacementList();
+    int[] x = new int[itemsCount];
+    int[] y = new int[itemsCount];
+    int[] widths = rectangles.getWidths();
+    int[] heights = rectangles.getHeights();
+    int[] bins = new int[itemsCount];
     for (int i = 0; i < itemsCount; i++) {
-      Rectangle rect = rectangles.get(i);
-      RectangleBinPlacement placement = placements.get(i);
-      if (placement.getX() < 0 || placement.getX() + rect.getWidth() > input.getBinWidth() ||
-          placement.getY() < 0 || placement.getY() + rect.getHeight() > input.getBinHeight()) {
+      if (placements.getX(i) < 0 || placements.getX(i) + widths[i] > input.getBinWidth() ||
+          placements.getY(i) < 0 || placements.getY(i) + heights[i] > input.getBinHeight()) {
         verdict.setResult(Result.INVALID_OUTPUT);
         verdict.setComment("Rectangle item #" + i + " does not fit into the bin");
         return verdict;
       }
+      x[i] = placements.getX(i);
+      y[i] = placements.getY(i);
+      bins[i] = placements.getBinNumber(i);
     }
 
-    // Verifies that rectangle items do not intersect
-    for (int i = 0; i < itemsCount; i++) {
-      int xli = placements.get(i).getX();
-      int xri = xli + rectangles.get(i).getWidth();
-      int yli = placements.get(i).getY();
-      int yri = yli + rectangles.get(i).getHeight();
-      for (int j = i + 1; j < itemsCount; j++) {
-        if (placements.get(i).getBinNumber() != placements.get(j).getBinNumber()) {
-          continue;
-        }
-        int xlj = placements.get(j).getX();
-        int xrj = xlj + rectangles.get(j).getWidth();
-        int ylj = placements.get(j).getY();
-        int yrj = ylj + rectangles.get(j).getHeight();
+    // Verifies that rectangle items of the same bin do not intersect
+    int[] intersection = new BinsChecker(x, y, widths, heights, bins).findIntersection();
+    if (intersection != null) {
+      verdict.setResult(Result.INVALID_OUTPUT);
+      verdict.setComment("Rectangle items #" + intersection[0] + " and #" + intersection[1] +
+          " intersects");
+      return verdict;
+    }
+
+    // Output is correct
+    verdict.setResult(Result.VALID_OUTPUT);
 
-        int xl = Math.max(xli, xlj);
-        int xr = Math.max(Math.min(xri, xrj), xl);
-        int yl = Math.max(yli, ylj);
-        int yr = Math.max(Math.min(yri, yrj), yl);
+    return verdict;
+  }
 
-        if ((xr - xl) * (yr - yl) > 0) {
+  @Override
+  public Session<Output> startSession(Input input, Output baseline) {
+    Verdict verdict = verify(input, baseline);
+    if (verdict.getResult() != Result.VALID_OUTPUT) {
+      throw new IllegalArgumentException("Baseline output is not valid: " + verdict);
+    }
+    return new IncrementalSession(input, baseline);
+  }
+
+  /**
+   * Incremental verification session that keeps placements of the baseline in
+   * {@link RectangleIndex}.
+   */
+  private static class IncrementalSession implements Session<Output> {
+    private final Input input;
+    private final RectangleIndex index;
+
+    public IncrementalSession(Input input, Output baseline) {
+      this.input = input;
+      int itemsCount = input.getItemsCount();
+      RectangleSet rectangles = input.getRectangles();
+      RectangleBinPlacementList placements = baseline.getPlacementList();
+      int[] x = new int[itemsCount];
+      int[] y = new int[itemsCount];
+      int[] bins = new int[itemsCount];
+      int[] widths = rectangles.getWidths();
+      int[] heights = rectangles.getHeights();
+      for (int i = 0; i < itemsCount; i++) {
+        x[i] = placements.getX(i);
+        y[i] = placements.getY(i);
+        bins[i] = placements.getBinNumber(i);
+      }
+      index = new RectangleIndex(x, y, bins, widths, heights, input.getBinWidth());
+    }
+
+    @Override
+    public Verdict verify(Output output, int[] changedItems) {
+      Verdict verdict = new Verdict();
+
+      // Verifies that output is not null
+      if (output == null) {
+        verdict.setResult(Result.INVALID_OUTPUT);
+        verdict.setComment("Output is null");
+        return verdict;
+      }
+
+      // Verifies that input and output has the same number of rectangle items
+      int itemsCount = input.getItemsCount();
+      if (itemsCount != output.getPlacementsCount()) {
+        verdict.setResult(Result.INVALID_OUTPUT);
+        verdict.setComment("Input and output has different number of rectangle items");
+        return verdict;
+      }
+
+      // Verifies that each changed rectangle item fits into the bin
+      int[] changed = RectangleIndex.sortedDistinct(changedItems, itemsCount);
+      RectangleSet rectangles = input.getRectangles();
+      RectangleBinPlacementList placements = output.getPlacementList();
+      int[] newX = new int[changed.length];
+      int[] newY = new int[changed.length];
+      int[] newBins = new int[changed.length];
+      for (int c = 0; c < changed.length; c++) {
+        int k = changed[c];
+        int width = rectangles.getWidth(k);
+        int height = rectangles.getHeight(k);
+        if (placements.getX(k) < 0 || placements.getX(k) + width > input.getBinWidth() ||
+            placements.getY(k) < 0 || placements.getY(k) + height > input.getBinHeight()) {
           verdict.setResult(Result.INVALID_OUTPUT);
-          verdict.setComment("Rectangle items #" + i + " and #" + j + " intersects");
+          verdict.setComment("Rectangle item #" + k + " does not fit into the bin");
           return verdict;
         }
+        newX[c] = placements.getX(k);
+        newY[c] = placements.getY(k);
+        newBins[c] = placements.getBinNumber(k);
+      }
+
+      // Verifies that changed rectangle items do not intersect other ones
+      int[] intersection = index.findIntersection(changed, newX, newY, newBins);
+      if (intersection != null) {
+        verdict.setResult(Result.INVALID_OUTPUT);
+        verdict.setComment("Rectangle items #" + intersection[0] + " and #" + intersection[1] +
+            " intersects");
+        return verdict;
+      }
+
+      // Output is correct
+      verdict.setResult(Result.VALID_OUTPUT);
+
+      return verdict;
+    }
+
+    @Override
+    public void setBaseline(Output output, int[] changedItems) {
+      int[] changed = RectangleIndex.sortedDistinct(changedItems, input.getItemsCount());
+      RectangleBinPlacementList placements = output.getPlacementList();
+      int[] newX = new int[changed.length];
+      int[] newY = new int[changed.length];
+      int[] newBins = new int[changed.length];
+      for (int c = 0; c < changed.length; c++) {
+        newX[c] = placements.getX(changed[c]);
+        newY[c] = placements.getY(changed[c]);
+        newBins[c] = placements.getBinNumber(changed[c]);
+      }
+      index.move(changed, newX, newY, newBins);
+    }
+  }
+
+  /**
+   * Checks intersection of rectangle items bin by bin. Items are grouped by
+   * bins in linear time (or by sorting if bin numbers are sparse), then each
+   * bin is checked by {@link IntersectionUtil}. Outputs with many bins are
+   * checked by several threads.
+   */
+  private static class BinsChecker {
+    private final int[] x;
+    private final int[] y;
+    private final int[] widths;
+    private final int[] heights;
+
+    /** Indices of items grouped by bins, increasing inside each bin. */
+    private final int[] items;
+
+    /** Bin {@code b} consists of {@code items[binStarts[b]..binStarts[b+1])}. */
+    private int[] binStarts;
+    private int binsCount;
+
+    public BinsChecker(int[] x, int[] y, int[] widths, int[] heights, int[] bins) {
+      this.x = x;
+      this.y = y;
+      this.widths = widths;
+      this.heights = heights;
+      this.items = groupByBins(bins);
+      binStarts = new int[bins.length + 1];
+      binsCount = 0;
+      for (int p = 0; p < items.length; p++) {
+        if (p == 0 || bins[items[p]] != bins[items[p - 1]]) {
+          binStarts[binsCount++] = p;
+        }
       }
+      binStarts[binsCount] = items.length;
     }
 
-    // Output is correct
-    verdict.setResult(Result.VALID_OUTPUT);
+    /**
+     * @return indices {@code i < j} of the first intersecting pair of items or
+     *         null if items do not intersect
+     */
+    public int[] findIntersection() {
+      int threads = Math.min(Runtime.getRuntime().availableProcessors(),
+          binsCount / MIN_BINS_PER_THREAD);
+      if (threads <= 1) {
+        return findIntersection(0, binsCount);
+      }
+      List<Future<int[]>> futures = new ArrayList<Future<int[]>>(threads);
+      for (int t = 0; t < threads; t++) {
+        final int fromBin = (int) ((long) binsCount * t / threads);
+        final int toBin = (int) ((long) binsCount * (t + 1) / threads);
+        futures.add(getExecutor().submit(new Callable<int[]>() {
+          @Override
+          public int[] call() {
+            return findIntersection(fromBin, toBin);
+          }
+        }));
+      }
+      int[] first = null;
+      for (Future<int[]> future : futures) {
+        int[] intersection;
+        try {
+          intersection = future.get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException("Verification was interrupted", e);
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof RuntimeException) {
+            throw (RuntimeException) e.getCause();
+          }
+          if (e.getCause() instanceof Error) {
+            throw (Error) e.getCause();
+          }
+          throw new IllegalStateException(e.getCause());
+        }
+        first = firstOf(first, intersection);
+      }
+      return first;
+    }
 
-    return verdict;
+    /**
+     * @return the first intersecting pair of items in bins
+     *         {@code [fromBin..toBin)} or null
+     */
+    private int[] findIntersection(int fromBin, int toBin) {
+      int[] first = null;
+      for (int b = fromBin; b < toBin; b++) {
+        // Items of the bin can't form pair that precedes the found one
+        if (first != null && items[binStarts[b]] > first[0]) {
+          continue;
+        }
+        first = firstOf(first, IntersectionUtil.findIntersection(x, y, widths, heights, items,
+            binStarts[b], binStarts[b + 1]));
+      }
+      return first;
+    }
+
+    /** Returns pair that goes first in lexicographical order. */
+    private static int[] firstOf(int[] a, int[] b) {
+      if (a == null) {
+        return b;
+      }
+      if (b == null) {
+        return a;
+      }
+      return (a[0] < b[0] || (a[0] == b[0] && a[1] < b[1])) ? a : b;
+    }
+
+    /**
+     * Returns indices of items stably sorted by bin numbers. Counting sort is
+     * used if bin numbers are dense enough.
+     */
+    private static int[] groupByBins(int[] bins) {
+      int n = bins.length;
+      int[] items = new int[n];
+      if (n == 0) {
+        return items;
+      }
+      int minBin = bins[0], maxBin = bins[0];
+      for (int bin : bins) {
+        minBin = Math.min(minBin, bin);
+        maxBin = Math.max(maxBin, bin);
+      }
+      if ((long) maxBin - minBin <= 2L * n) {
+        int[] starts = new int[maxBin - minBin + 2];
+        for (int bin : bins) {
+          starts[bin - minBin + 1]++;
+        }
+        for (int b = 1; b < starts.length; b++) {
+          starts[b] += starts[b - 1];
+        }
+        for (int i = 0; i < n; i++) {
+          items[starts[bins[i] - minBin]++] = i;
+        }
+      } else {
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+          keys[i] = ((long) bins[i] << 32) | i;
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < n; i++) {
+          items[i] = (int) keys[i];
+        }
+      }
+      return items;
+    }
   }
 }
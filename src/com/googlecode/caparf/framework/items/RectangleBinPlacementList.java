@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2010 Denis Nazarov <denis.nsc@gmail.com>.
+ *
+ * This file is part of caparf (http://code.google.com/p/caparf/).
+ *
+ * caparf is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * caparf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with caparf. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.caparf.framework.items;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * List of rectangle item bin-placements stored as three primitive arrays of
+ * coordinates and bin numbers. {@link RectangleBinPlacement} objects are
+ * created on demand by {@link #get(int)}, so algorithms should fill the list by
+ * {@link #set(int, int, int, int)} and read it by {@link #getX(int)},
+ * {@link #getY(int)} and {@link #getBinNumber(int)} to avoid allocation of
+ * placement objects.
+ *
+ * @author denis.nsc@gmail.com (Denis Nazarov)
+ */
+public final class RectangleBinPlacementList extends AbstractList<RectangleBinPlacement>
+    implements RandomAccess {
+
+  /** {@code x}-coordinates of rectangles lower-left points. */
+  private final int[] x;
+
+  /** {@code y}-coordinates of rectangles lower-left points. */
+  private final int[] y;
+
+  /** Numbers of bins into which rectangles are packed. */
+  private final int[] bins;
+
+  /** Number of modifications of this list. */
+  private long version;
+
+  /**
+   * Constructs list of {@code size} bin-placements with all rectangles placed
+   * at the origin of the first bin.
+   *
+   * @param size number of bin-placements
+   */
+  public RectangleBinPlacementList(int size) {
+    this.x = new int[size];
+    this.y = new int[size];
+    this.bins = new int[size];
+  }
+
+  /**
+   * Constructs list containing copy of the given {@code placements}.
+   *
+   * @param placements rectangle item bin-placements
+   */
+  public RectangleBinPlacementList(List<RectangleBinPlacement> placements) {
+    if (placements instanceof RectangleBinPlacementList) {
+      RectangleBinPlacementList other = (RectangleBinPlacementList) placements;
+      this.x = other.x.clone();
+      this.y = other.y.clone();
+      this.bins = other.bins.clone();
+    } else {
+      this.x = new int[placements.size()];
+      this.y = new int[placements.size()];
+      this.bins = new int[placements.size()];
+      for (int i = 0; i < x.length; i++) {
+        RectangleBinPlacement placement = placements.get(i);
+        x[i] = placement.getX();
+        y[i] = placement.getY();
+        bins[i] = placement.getBinNumber();
+      }
+    }
+  }
+
+  /**
+   * Constructs list containing copy of the given {@code placements}.
+   *
+   * @param placements rectangle item bin-placements
+   */
+  public RectangleBinPlacementList(RectangleBinPlacement... placements) {
+    this.x = new int[placements.length];
+    this.y = new int[placements.length];
+    this.bins = new int[placements.length];
+    for (int i = 0; i < placements.length; i++) {
+      x[i] = placements[i].getX();
+      y[i] = placements[i].getY();
+      bins[i] = placements[i].getBinNumber();
+    }
+  }
+
+  /** Constructs list that owns the given arrays. */
+  private RectangleBinPlacementList(int[] x, int[] y, int[] bins) {
+    this.x = x;
+    this.y = y;
+    this.bins = bins;
+  }
+
+  @Override
+  public int size() {
+    return x.length;
+  }
+
+  /**
+   * Returns new {@link RectangleBinPlacement} object for {@code i}-th
+   * bin-placement. Later changes of this list are not reflected in it.
+   */
+  @Override
+  public RectangleBinPlacement get(int i) {
+    return new RectangleBinPlacement(x[i], y[i], bins[i]);
+  }
+
+  /**
+   * @return {@code x}-coordinate of {@code i}-th rectangle lower-left point
+   */
+  public int getX(int i) {
+    return x[i];
+  }
+
+  /**
+   * @return {@code y}-coordinate of {@code i}-th rectangle lower-left point
+   */
+  public int getY(int i) {
+    return y[i];
+  }
+
+  /**
+   * @return number of bin into which {@code i}-th rectangle is packed
+   */
+  public int getBinNumber(int i) {
+    return bins[i];
+  }
+
+  /**
+   * Places {@code i}-th rectangle at the given lower-left point of the given
+   * bin.
+   *
+   * @param i rectangle index
+   * @param x {@code x}-coordinate of rectangle lower-left point
+   * @param y {@code y}-coordinate of rectangle lower-left point
+   * @param binNumber number of bin into which rectangle is packed
+   */
+  public void set(int i, int x, int y, int binNumber) {
+    this.x[i] = x;
+    this.y[i] = y;
+    this.bins[i] = binNumber;
+    version++;
+  }
+
+  /**
+   * Returns number of modifications of this list. Version is changed by every
+   * modification, so it can be used to validate values cached for the list.
+   *
+   * @return version of this list
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * @return copy of this list with the same version
+   */
+  public RectangleBinPlacementList copy() {
+    RectangleBinPlacementList copy = new RectangleBinPlacementList(x.clone(), y.clone(), bins.clone());
+    copy.version = version;
+    return copy;
+  }
+
+  /**
+   * Returns transformed list of bin-placements whose {@code i}-th
+   * bin-placement is {@code transformation[i]}-th bin-placement of this list.
+   *
+   * @param transformation bin-placements transformation
+   * @return transformed list of bin-placements
+   */
+  public RectangleBinPlacementList transform(int[] transformation) {
+    int[] transformedX = new int[transformation.length];
+    int[] transformedY = new int[transformation.length];
+    int[] transformedBins = new int[transformation.length];
+    for (int i = 0; i < transformation.length; i++) {
+      transformedX[i] = x[transformation[i]];
+      transformedY[i] = y[transformation[i]];
+      transformedBins[i] = bins[transformation[i]];
+    }
+    return new RectangleBinPlacementList(transformedX, transformedY, transformedBins);
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2010 Denis Nazarov <denis.nsc@gmail.com>.
+ *
+ * This file is part of caparf (http://code.google.com/p/caparf/).
+ *
+ * caparf is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * caparf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with caparf. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.caparf.framework.items;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.googlecode.caparf.framework.base.BaseInput;
+
+/**
+ * Base class for inputs consisting of rectangle items. Rectangles are stored
+ * in {@link RectangleSet}, so that algorithms can access their sizes without
+ * unpacking {@link Rectangle} objects. Clones and transformations of input
+ * never copy {@link Rectangle} objects.
+ *
+ * @author denis.nsc@gmail.com (Denis Nazarov)
+ */
+public abstract class RectangleInput extends BaseInput<Rectangle> {
+
+  /**
+   * Constructs input of the given rectangle items. If {@code rectangles} is
+   * {@link RectangleSet} then its arrays are shared without copying.
+   *
+   * @param rectangles rectangle items
+   * @param identifier input identifier
+   */
+  public RectangleInput(List<Rectangle> rectangles, String identifier) {
+    super(identifier, new RectangleSet(rectangles));
+  }
+
+  /**
+   * Constructs input of the given rectangle items.
+   *
+   * @param rectangles rectangle items
+   * @param identifier input identifier
+   */
+  public RectangleInput(Rectangle[] rectangles, String identifier) {
+    super(identifier, new RectangleSet(rectangles));
+  }
+
+  /**
+   * Returns rectangle items of this input. Unlike {@link #getItems()} it gives
+   * access to primitive arrays of rectangles' sizes.
+   *
+   * @return rectangle items
+   */
+  public RectangleSet getRectangles() {
+    return (RectangleSet) itemsList();
+  }
+
+  /**
+   * @return width of {@code i}-th rectangle item
+   */
+  public int getWidth(int i) {
+    return getRectangles().getWidth(i);
+  }
+
+  /**
+   * @return height of {@code i}-th rectangle item
+   */
+  public int getHeight(int i) {
+    return getRectangles().getHeight(i);
+  }
+
+  @Override
+  protected long calculateContentHash() {
+    RectangleSet rectangles = getRectangles();
+    int[] widths = rectangles.getWidths();
+    int[] heights = rectangles.getHeights();
+    long hash = getClass().getName().hashCode();
+    for (int i = 0; i < widths.length; i++) {
+      hash = 31 * (31 * hash + widths[i]) + heights[i];
+    }
+    return hash;
+  }
+
+  @Override
+  public boolean contentEquals(BaseInput<?> other) {
+    if (other == null || getClass() != other.getClass()) {
+      return false;
+    }
+    RectangleSet rectangles = getRectangles();
+    RectangleSet otherRectangles = ((RectangleInput) other).getRectangles();
+    return Arrays.equals(rectangles.getWidths(), otherRectangles.getWidths()) &&
+        Arrays.equals(rectangles.getHeights(), otherRectangles.getHeights());
+  }
+
+  @Override
+  protected List<Rectangle> transformItems(List<Rectangle> items, int[] transformation) {
+    return ((RectangleSet) items).transform(transformation);
+  }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2010 Denis Nazarov <denis.nsc@gmail.com>.
+ *
+ * This file is part of caparf (http://code.google.com/p/caparf/).
+ *
+ * caparf is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * caparf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with caparf. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.caparf.framework.items;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * List of rectangle item placements stored as two primitive arrays of
+ * coordinates. {@link RectanglePlacement} objects are created on demand by
+ * {@link #get(int)}, so algorithms should fill the list by
+ * {@link #set(int, int, int)} and read it by {@link #getX(int)} and
+ * {@link #getY(int)} to avoid allocation of placement objects.
+ *
+ * @author denis.nsc@gmail.com (Denis Nazarov)
+ */
+public final class RectanglePlacementList extends AbstractList<RectanglePlacement>
+    implements RandomAccess {
+
+  /** {@code x}-coordinates of rectangles lower-left points. */
+  private final int[] x;
+
+  /** {@code y}-coordinates of rectangles lower-left points. */
+  private final int[] y;
+
+  /** Number of modifications of this list. */
+  private long version;
+
+  /**
+   * Constructs list of {@code size} placements with all rectangles placed at
+   * the origin.
+   *
+   * @param size number of placements
+   */
+  public RectanglePlacementList(int size) {
+    this.x = new int[size];
+    this.y = new int[size];
+  }
+
+  /**
+   * Constructs list containing copy of the given {@code placements}.
+   *
+   * @param placements rectangle item placements
+   */
+  public RectanglePlacementList(List<RectanglePlacement> placements) {
+    if (placements instanceof RectanglePlacementList) {
+      RectanglePlacementList other = (RectanglePlacementList) placements;
+      this.x = other.x.clone();
+      this.y = other.y.clone();
+    } else {
+      this.x = new int[placements.size()];
+      this.y = new int[placements.size()];
+      for (int i = 0; i < x.length; i++) {
+        RectanglePlacement placement = placements.get(i);
+        x[i] = placement.getX();
+        y[i] = placement.getY();
+      }
+    }
+  }
+
+  /**
+   * Constructs list containing copy of the given {@code placements}.
+   *
+   * @param placements rectangle item placements
+   */
+  public RectanglePlacementList(RectanglePlacement... placements) {
+    this.x = new int[placements.length];
+    this.y = new int[placements.length];
+    for (int i = 0; i < placements.length; i++) {
+      x[i] = placements[i].getX();
+      y[i] = placements[i].getY();
+    }
+  }
+
+  /** Constructs list that owns the given arrays. */
+  private RectanglePlacementList(int[] x, int[] y) {
+    this.x = x;
+    this.y = y;
+  }
+
+  @Override
+  public int size() {
+    return x.length;
+  }
+
+  /**
+   * Returns new {@link RectanglePlacement} object for {@code i}-th placement.
+   * Later changes of this list are not reflected in it.
+   */
+  @Override
+  public RectanglePlacement get(int i) {
+    return new RectanglePlacement(x[i], y[i]);
+  }
+
+  /**
+   * @return {@code x}-coordinate of {@code i}-th rectangle lower-left point
+   */
+  public int getX(int i) {
+    return x[i];
+  }
+
+  /**
+   * @return {@code y}-coordinate of {@code i}-th rectangle lower-left point
+   */
+  public int getY(int i) {
+    return y[i];
+  }
+
+  /**
+   * Places {@code i}-th rectangle at the given lower-left point.
+   *
+   * @param i rectangle index
+   * @param x {@code x}-coordinate of rectangle lower-left point
+   * @param y {@code y}-coordinate of rectangle lower-left point
+   */
+  public void set(int i, int x, int y) {
+    this.x[i] = x;
+    this.y[i] = y;
+    version++;
+  }
+
+  /**
+   * Changes {@code x}-coordinate of {@code i}-th rectangle lower-left point.
+   *
+   * @param i rectangle index
+   * @param x new {@code x}-coordinate of rectangle lower-left point
+   */
+  public void setX(int i, int x) {
+    this.x[i] = x;
+    version++;
+  }
+
+  /**
+   * Changes {@code y}-coordinate of {@code i}-th rectangle lower-left point.
+   *
+   * @param i rectangle index
+   * @param y new {@code y}-coordinate of rectangle lower-left point
+   */
+  public void setY(int i, int y) {
+    this.y[i] = y;
+    version++;
+  }
+
+  /**
+   * Returns number of modifications of this list. Version is changed by every
+   * modification, so it can be used to validate values cached for the list.
+   *
+   * @return version of this list
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * @return copy of this list with the same version
+   */
+  public RectanglePlacementList copy() {
+    RectanglePlacementList copy = new RectanglePlacementList(x.clone(), y.clone());
+    copy.version = version;
+    return copy;
+  }
+
+  /**
+   * Returns transformed list of placements whose {@code i}-th placement is
+   * {@code transformation[i]}-th placement of this list.
+   *
+   * @param transformation placements transformation
+   * @return transformed list of placements
+   */
+  public RectanglePlacementList transform(int[] transformation) {
+    int[] transformedX = new int[transformation.length];
+    int[] transformedY = new int[transformation.length];
+    for (int i = 0; i < transformation.length; i++) {
+      transformedX[i] = x[transformation[i]];
+      transformedY[i] = y[transformation[i]];
+    }
+    return new RectanglePlacementList(transformedX, transformedY);
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2010 Denis Nazarov <denis.nsc@gmail.com>.
+ *
+ * This file is part of caparf (http://code.google.com/p/caparf/).
+ *
+ * caparf is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * caparf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with caparf. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.caparf.framework.items;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list of rectangle items stored as two primitive arrays of widths
+ * and heights. {@link Rectangle} objects are created on demand by
+ * {@link #get(int)}, so algorithms should use primitive accessors
+ * ({@link #getWidth(int)}, {@link #getHeight(int)}, {@link #getWidths()},
+ * {@link #getHeights()}) instead.
+ *
+ * @author denis.nsc@gmail.com (Denis Nazarov)
+ */
+public final class RectangleSet extends AbstractList<Rectangle> implements RandomAccess {
+
+  /** Widths of rectangles, never modified. */
+  private final int[] widths;
+
+  /** Heights of rectangles, never modified. */
+  private final int[] heights;
+
+  /**
+   * Constructs set of rectangles with the given sizes. Arrays are owned by the
+   * set from now on and must not be modified.
+   *
+   * @param widths widths of rectangles
+   * @param heights heights of rectangles
+   */
+  public RectangleSet(int[] widths, int[] heights) {
+    if (widths.length != heights.length) {
+      throw new IllegalArgumentException("Widths and heights must have the same length");
+    }
+    this.widths = widths;
+    this.heights = heights;
+  }
+
+  /**
+   * Constructs set of the given rectangles.
+   *
+   * @param rectangles rectangle items
+   */
+  public RectangleSet(List<Rectangle> rectangles) {
+    if (rectangles instanceof RectangleSet) {
+      RectangleSet other = (RectangleSet) rectangles;
+      this.widths = other.widths;
+      this.heights = other.heights;
+    } else {
+      this.widths = new int[rectangles.size()];
+      this.heights = new int[rectangles.size()];
+      for (int i = 0; i < widths.length; i++) {
+        Rectangle rect = rectangles.get(i);
+        widths[i] = rect.getWidth();
+        heights[i] = rect.getHeight();
+      }
+    }
+  }
+
+  /**
+   * Constructs set of the given rectangles.
+   *
+   * @param rectangles rectangle items
+   */
+  public RectangleSet(Rectangle... rectangles) {
+    this.widths = new int[rectangles.length];
+    this.heights = new int[rectangles.length];
+    for (int i = 0; i < rectangles.length; i++) {
+      widths[i] = rectangles[i].getWidth();
+      heights[i] = rectangles[i].getHeight();
+    }
+  }
+
+  @Override
+  public int size() {
+    return widths.length;
+  }
+
+  /**
+   * Returns new {@link Rectangle} object for {@code i}-th rectangle.
+   */
+  @Override
+  public Rectangle get(int i) {
+    return new Rectangle(widths[i], heights[i]);
+  }
+
+  /**
+   * @return width of {@code i}-th rectangle
+   */
+  public int getWidth(int i) {
+    return widths[i];
+  }
+
+  /**
+   * @return height of {@code i}-th rectangle
+   */
+  public int getHeight(int i) {
+    return heights[i];
+  }
+
+  /**
+   * Returns widths of all rectangles without copying. Returned array must not
+   * be modified.
+   *
+   * @return widths of rectangles
+   */
+  public int[] getWidths() {
+    return widths;
+  }
+
+  /**
+   * Returns heights of all rectangles without copying. Returned array must not
+   * be modified.
+   *
+   * @return heights of rectangles
+   */
+  public int[] getHeights() {
+    return heights;
+  }
+
+  /**
+   * Returns set of rectangles rotated by 90 degrees, i.e. with swapped widths
+   * and heights. Arrays are shared with this set.
+   *
+   * @return set of rotated rectangles
+   */
+  public RectangleSet rotate() {
+    return new RectangleSet(heights, widths);
+  }
+
+  /**
+   * Returns transformed set of rectangles whose {@code i}-th rectangle is
+   * {@code transformation[i]}-th rectangle of this set.
+   *
+   * @param transformation rectangles transformation
+   * @return transformed set of rectangles
+   */
+  public RectangleSet transform(int[] transformation) {
+    int[] transformedWidths = new int[transformation.length];
+    int[] transformedHeights = new int[transformation.length];
+    for (int i = 0; i < transformation.length; i++) {
+      transformedWidths[i] = widths[transformation[i]];
+      transformedHeights[i] = heights[transformation[i]];
+    }
+    return new RectangleSet(transformedWidths, transformedHeights);
+  }
+}
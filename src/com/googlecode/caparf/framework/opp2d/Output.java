@@ -19,11 +19,11 @@
 
 package com.googlecode.caparf.framework.opp2d;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import com.googlecode.caparf.framework.base.BaseOutput;
 import com.googlecode.caparf.framework.items.RectanglePlacement;
+import com.googlecode.caparf.framework.items.RectanglePlacementList;
 
 /**
  * Output for 2 Dimensional Orthogonal Packing Problem.
@@ -42,7 +42,7 @@ public class Output extends BaseOutput<RectanglePlacement> {
    * @param placements rectangle item placements
    */
   public Output(List<RectanglePlacement> placements) {
-    super(placements);
+    super(new RectanglePlacementList(placements), false);
     this.hasSolution = true;
   }
 
@@ -53,7 +53,7 @@ public class Output extends BaseOutput<RectanglePlacement> {
    * @param placements rectangle item placements
    */
   public Output(RectanglePlacement[] placements) {
-    super(placements);
+    super(new RectanglePlacementList(placements), false);
     this.hasSolution = true;
   }
 
@@ -62,8 +62,8 @@ public class Output extends BaseOutput<RectanglePlacement> {
    * placements, i.e. the corresponding input is infeasible.
    */
   public Output() {
-    super(new ArrayList<RectanglePlacement>());
-    this.hasSolution = true;
+    super(new RectanglePlacementList(0), false);
+    this.hasSolution = false;
   }
 
   /**
@@ -75,14 +75,38 @@ public class Output extends BaseOutput<RectanglePlacement> {
 
   @Override
   public Number calculateObjectiveFunction() {
+    return (int) calculateObjectiveFunctionAsLong();
+  }
+
+  @Override
+  public double calculateObjectiveFunctionAsDouble() {
+    return calculateObjectiveFunctionAsLong();
+  }
+
+  @Override
+  public long calculateObjectiveFunctionAsLong() {
     return hasSolution ? 1 : 0;
   }
 
+  /**
+   * Returns item placements of this output. Unlike {@link #getPlacements()} it
+   * gives access to coordinates without creating placement objects.
+   *
+   * @return rectangle item placements
+   */
+  public RectanglePlacementList getPlacementList() {
+    return (RectanglePlacementList) placementsList();
+  }
+
   @Override
-  public void transform(List<Integer> transformation) {
-    if (hasSolution) {
-      super.transform(transformation);
-    }
+  protected List<RectanglePlacement> transformPlacements(List<RectanglePlacement> placements,
+      int[] transformation) {
+    return ((RectanglePlacementList) placements).transform(transformation);
+  }
+
+  @Override
+  protected List<RectanglePlacement> copyPlacements(List<RectanglePlacement> placements) {
+    return ((RectanglePlacementList) placements).copy();
   }
 
   @Override
@@ -19,28 +19,107 @@
 
 package com.googlecode.caparf.framework.runner;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import com.googlecode.caparf.framework.base.Algorithm;
 import com.googlecode.caparf.framework.base.BaseInput;
 import com.googlecode.caparf.framework.base.BaseItem;
 import com.googlecode.caparf.framework.base.BaseItemPlacement;
 import com.googlecode.caparf.framework.base.BaseOutput;
+import com.googlecode.caparf.framework.base.InputSuite;
 import com.googlecode.caparf.framework.base.Verdict;
 import com.googlecode.caparf.framework.runner.RunInformation;
+import com.googlecode.caparf.framework.util.InputContentMap;
+import com.googlecode.caparf.framework.util.ObjectUtil;
 
 /**
  * Main class for running caparf scenarios.
+ * <p>
+ * All algorithms and verifier share the single read-only copy of each input
+ * (look at {@link BaseInput#makeReadOnly()}). Algorithm that tries to transform
+ * its input fails with {@link UnsupportedOperationException}, which is
+ * reported as {@link RunInformation.RunResult#EXCEPTION}.
+ * <p>
+ * By default all (input, algorithm) runs are executed sequentially one after
+ * another. Use {@link #setParallelism(int)} to execute independent runs
+ * concurrently by several worker threads. Time limits are not affected by
+ * parallel execution since {@link Runner} measures CPU time of the thread
+ * running algorithm. In parallel mode:
+ * <ul>
+ * <li>every run gets its own clone of the algorithm (see
+ * {@link Algorithm#clone()});
+ * <li>scenario verifier must be thread-safe;
+ * <li>listeners are notified from the thread that called
+ * {@link #run(Scenario)} in exactly the same order as in sequential mode, i.e.
+ * {@link RunListener#testStarted(Algorithm, BaseInput)} immediately followed by
+ * {@link RunListener#testFinished(Algorithm, BaseInput, BaseOutput, Verdict)}
+ * for each run in scenario order. Hence, {@code testStarted} is called once the
+ * run is about to be reported rather than when it was actually started.
+ * </ul>
+ * <p>
+ * Long scenario runs can be made resumable by {@link #setJournal(File)}: each
+ * finished run is recorded to the journal, and runs already recorded there are
+ * not executed again but replayed to listeners.
+ * <p>
+ * Scenario may contain the same instance several times under different
+ * identifiers (look at {@link BaseInput#contentEquals(BaseInput)}). By default
+ * every input is solved. If results reuse is enabled by
+ * {@link #setResultsReuse(boolean)}, each algorithm solves such instance only
+ * once: runs on duplicate inputs reuse verdicts of the first input with the
+ * same content and are reported to listeners with null output like journaled
+ * runs.
+ * <p>
+ * Inputs are taken from scenario suite one by one while scenario is run and
+ * are not referenced once their runs are reported, so streaming suites of
+ * generated inputs (look at {@link InputSuite#isStreaming()}) are run in
+ * constant memory. Results are not reused for such suites since it would
+ * require to keep all inputs.
  *
  * @author denis.nsc@gmail.com (Denis Nazarov)
  */
 public class CaparfCore<I extends BaseInput<? extends BaseItem>,
     O extends BaseOutput<? extends BaseItemPlacement>> {
 
+  /**
+   * Maximal number of submitted but not yet reported runs per worker thread in
+   * parallel mode.
+   */
+  private static final int MAX_PENDING_TESTS_PER_WORKER = 4;
+
   private RunNotifier<I, O> notifier;
 
+  /** Number of worker threads executing runs. */
+  private int parallelism;
+
+  /** Runner of algorithms in child JVMs, null for in-process runs. */
+  private ForkedRunner<I, O> forkedRunner;
+
+  /** File of the run journal, null if runs are not journaled. */
+  private File journalFile;
+
+  /** Run journal of the current scenario run, null if runs are not journaled. */
+  private RunJournal journal;
+
+  /** Whether runs on inputs with the same content reuse verdicts. */
+  private boolean reuseResults;
+
   public CaparfCore() {
     notifier = new RunNotifier<I, O>();
+    parallelism = 1;
+    forkedRunner = null;
+    journalFile = null;
+    reuseResults = false;
     notifier.addListener(new TextListener<I, O>());
     configureJVM();
   }
@@ -57,31 +136,284 @@ public class CaparfCore<I extends BaseInput<? extends BaseItem>,
     }
   }
 
+  /**
+   * @return number of worker threads executing runs
+   */
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  /**
+   * Sets number of worker threads executing independent (input, algorithm)
+   * runs. {@code 1} means that scenario will be run sequentially (default).
+   * There is little sense in setting more threads than there are available
+   * processors (see {@link Runtime#availableProcessors()}).
+   *
+   * @param threads number of worker threads
+   */
+  public void setParallelism(int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("number of worker threads must be positive");
+    }
+    this.parallelism = threads;
+  }
+
+  /**
+   * Sets runner that will execute algorithms in child JVMs instead of running
+   * them in this JVM. Use the same parallelism as the number of runner's
+   * workers to keep all child JVMs busy.
+   *
+   * @param forkedRunner runner of algorithms in child JVMs, null to run
+   *          algorithms in this JVM
+   */
+  public void setForkedRunner(ForkedRunner<I, O> forkedRunner) {
+    this.forkedRunner = forkedRunner;
+  }
+
+  /**
+   * Makes listeners to be notified by dedicated thread, so that slow listeners
+   * do not hold up running algorithms. {@link #run(Scenario)} returns only
+   * after all listeners have been notified.
+   *
+   * @param queueCapacity maximal number of events waiting for listeners
+   * @param backpressure policy applied when {@code queueCapacity} events are
+   *          waiting for listeners
+   */
+  public void setAsynchronousNotification(int queueCapacity,
+      RunNotifier.Backpressure backpressure) {
+    notifier.setAsynchronous(queueCapacity, backpressure);
+  }
+
+  /**
+   * Sets file of the run journal. Every finished (algorithm, input) run is
+   * appended to the journal. Runs that are already in the journal, e.g. left by
+   * previous run of the scenario that was interrupted, are not executed again:
+   * their journaled verdicts are reported to listeners with null output. Runs
+   * are identified by algorithm display name and input identifier, so these
+   * pairs must be unique within scenario. Delete the journal to rerun
+   * everything.
+   *
+   * @param journalFile file of the run journal, null to disable journaling
+   */
+  public void setJournal(File journalFile) {
+    this.journalFile = journalFile;
+  }
+
+  /**
+   * Sets whether runs on input having the same content as some preceding input
+   * of scenario reuse verdicts of that input instead of being executed again.
+   * Disabled by default, do not enable it if verdicts of randomized algorithms
+   * on duplicate inputs are expected to be independent.
+   *
+   * @param reuseResults whether to reuse verdicts of inputs with the same
+   *          content
+   */
+  public void setResultsReuse(boolean reuseResults) {
+    this.reuseResults = reuseResults;
+  }
+
   /**
    * Runs the given {@code scenario}
    *
    * @param scenario scenario to execute
    */
-  @SuppressWarnings("unchecked")
   public void run(Scenario<I, O> scenario) {
-    notifier.fireScenarioRunStarted(scenario);
-    for (I input : scenario.getInputs().getAll()) {
+    if (journalFile != null) {
+      try {
+        journal = RunJournal.open(journalFile);
+      } catch (IOException e) {
+        throw new IllegalStateException("Can't open run journal " + journalFile, e);
+      }
+    }
+    try {
+      notifier.fireScenarioRunStarted(scenario);
+      if (parallelism == 1) {
+        runSequentially(scenario);
+      } else {
+        runInParallel(scenario);
+      }
+      notifier.fireScenarioRunFinished();
+    } finally {
+      // Stops dispatcher of asynchronous notifier if scenario run has failed
+      notifier.flush();
+      if (journal != null) {
+        try {
+          journal.close();
+        } catch (IOException e) {
+          System.err.println("ERROR: Can't close run journal " + journalFile + ": " + e);
+        }
+        journal = null;
+      }
+    }
+  }
+
+  /** Runs all tests of the given {@code scenario} in the current thread. */
+  private void runSequentially(Scenario<I, O> scenario) {
+    InputContentMap<I, List<Test>> solvedInputs = newSolvedInputsMap(scenario);
+    for (I input : scenario.getInputs()) {
+      I sharedInput = readOnlyCopyOf(input);
+      List<Test> sources = lookupSolvedInput(solvedInputs, input);
+      List<Test> tests = new ArrayList<Test>();
       for (Algorithm<I, O> algorithm : scenario.getAlgorithms()) {
         notifier.fireTestStarted(algorithm, input);
-        RunInformation runInfo = new RunInformation();
-        O output = Runner.run(algorithm, (I) input.clone(), scenario.getTimeLimit(), runInfo);
-        Verdict verdict;
-        if (runInfo.getResult() == RunInformation.RunResult.OK) {
-          verdict = scenario.getVerifier().verify((I) input.clone(), output);
-        } else {
-          verdict = new Verdict();
-          verdict.setResult(Verdict.Result.FAILED_TO_RUN);
+        Test test = new Test(scenario, algorithm, algorithm, input, sharedInput);
+        test.verdict = lookupJournal(algorithm, input);
+        if (test.verdict == null) {
+          if (sources == null) {
+            test.call();
+          } else {
+            test.verdict = sources.get(tests.size()).verdict;
+          }
+          appendToJournal(test);
         }
-        verdict.setRunInformation(runInfo);
-        notifier.fireTestFinished(algorithm, input, output, verdict);
+        notifier.fireTestFinished(algorithm, input, test.output, test.verdict);
+        test.output = null;
+        tests.add(test);
       }
+      addSolvedInput(solvedInputs, input, sources, tests);
+    }
+  }
+
+  /**
+   * Runs all tests of the given {@code scenario} by {@link #parallelism}
+   * worker threads and reports them in scenario order.
+   */
+  private void runInParallel(Scenario<I, O> scenario) {
+    ExecutorService workers = Executors.newFixedThreadPool(parallelism);
+    try {
+      Deque<Test> pending = new ArrayDeque<Test>();
+      InputContentMap<I, List<Test>> solvedInputs = newSolvedInputsMap(scenario);
+      for (I input : scenario.getInputs()) {
+        I sharedInput = readOnlyCopyOf(input);
+        List<Test> sources = lookupSolvedInput(solvedInputs, input);
+        List<Test> tests = new ArrayList<Test>();
+        for (Algorithm<I, O> algorithm : scenario.getAlgorithms()) {
+          if (pending.size() >= parallelism * MAX_PENDING_TESTS_PER_WORKER) {
+            reportTest(pending.pollFirst());
+          }
+          Verdict journaled = lookupJournal(algorithm, input);
+          Test test;
+          if (journaled == null && sources == null) {
+            test = new Test(scenario, algorithm, ObjectUtil.safeClone(algorithm), input,
+                sharedInput);
+            test.future = workers.submit(test);
+          } else {
+            test = new Test(scenario, algorithm, algorithm, input, sharedInput);
+            test.verdict = journaled;
+            if (journaled == null) {
+              test.source = sources.get(tests.size());
+            }
+          }
+          pending.addLast(test);
+          tests.add(test);
+        }
+        addSolvedInput(solvedInputs, input, sources, tests);
+      }
+      while (!pending.isEmpty()) {
+        reportTest(pending.pollFirst());
+      }
+    } finally {
+      workers.shutdownNow();
+    }
+  }
+
+  /**
+   * Returns read-only copy of the given {@code input} that will be shared by
+   * all algorithms and verifier. Copying is cheap since items are shared.
+   */
+  private I readOnlyCopyOf(I input) {
+    @SuppressWarnings("unchecked")
+    I copy = (I) input.clone();
+    copy.makeReadOnly();
+    return copy;
+  }
+
+  /**
+   * Returns empty map of tests by solved inputs or null if results of the
+   * given {@code scenario} are not reused.
+   */
+  private InputContentMap<I, List<Test>> newSolvedInputsMap(Scenario<I, O> scenario) {
+    if (!reuseResults || scenario.getInputs().isStreaming()) {
+      return null;
+    }
+    return new InputContentMap<I, List<Test>>();
+  }
+
+  /**
+   * Returns tests of preceding input having the same content as the given
+   * {@code input} or null if the input has to be solved.
+   */
+  private List<Test> lookupSolvedInput(InputContentMap<I, List<Test>> solvedInputs, I input) {
+    return solvedInputs == null ? null : solvedInputs.get(input);
+  }
+
+  /**
+   * Remembers {@code tests} of the given {@code input} unless they reuse
+   * {@code sources} tests of another input.
+   */
+  private void addSolvedInput(InputContentMap<I, List<Test>> solvedInputs, I input,
+      List<Test> sources, List<Test> tests) {
+    if (solvedInputs != null && sources == null) {
+      solvedInputs.put(input, tests);
+    }
+  }
+
+  /**
+   * Returns journaled verdict of {@code algorithm} run on {@code input} or null
+   * if the run has to be executed.
+   */
+  private Verdict lookupJournal(Algorithm<I, O> algorithm, I input) {
+    return journal == null ? null : journal.lookup(algorithm.getDisplayName(),
+        input.getIdentifier());
+  }
+
+  /** Appends the given executed {@code test} to the run journal if any. */
+  private void appendToJournal(Test test) {
+    if (journal == null) {
+      return;
+    }
+    try {
+      journal.append(test.algorithm.getDisplayName(), test.input.getIdentifier(), test.verdict);
+    } catch (IOException e) {
+      throw new IllegalStateException("Can't write run journal " + journalFile, e);
+    }
+  }
+
+  /**
+   * Waits for the given {@code test} to finish (unless it is replayed from the
+   * journal or reuses verdict of another test) and notifies listeners.
+   */
+  private void reportTest(Test test) {
+    notifier.fireTestStarted(test.algorithm, test.input);
+    if (test.source != null) {
+      // Source test precedes this one, so it has been already reported
+      test.verdict = test.source.verdict;
+      appendToJournal(test);
+    } else if (test.future != null) {
+      waitFor(test);
+      appendToJournal(test);
+    }
+    notifier.fireTestFinished(test.algorithm, test.input, test.output, test.verdict);
+    test.output = null;
+  }
+
+  /** Waits for the given executed {@code test} to finish. */
+  private void waitFor(Test test) {
+    try {
+      test.future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Scenario run was interrupted", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
     }
-    notifier.fireScenarioRunFinished();
   }
 
   /**
@@ -101,4 +433,52 @@ public class CaparfCore<I extends BaseInput<? extends BaseItem>,
   public void removeListener(RunListener<I, O> listener) {
     notifier.removeListener(listener);
   }
+
+  /** Single run of algorithm on input followed by output verification. */
+  private class Test implements Callable<Void> {
+    private final Scenario<I, O> scenario;
+    /** Algorithm reported to listeners. */
+    private final Algorithm<I, O> algorithm;
+    /** Algorithm instance that actually solves input. */
+    private final Algorithm<I, O> solver;
+    /** Input reported to listeners. */
+    private final I input;
+    /** Read-only copy of input passed to algorithm and verifier. */
+    private final I sharedInput;
+    /** Test of input with the same content whose verdict is reused or null. */
+    private Test source;
+    private Future<Void> future;
+    private O output;
+    private Verdict verdict;
+
+    public Test(Scenario<I, O> scenario, Algorithm<I, O> algorithm, Algorithm<I, O> solver,
+        I input, I sharedInput) {
+      this.scenario = scenario;
+      this.algorithm = algorithm;
+      this.solver = solver;
+      this.input = input;
+      this.sharedInput = sharedInput;
+    }
+
+    @Override
+    public Void call() {
+      RunInformation runInfo = new RunInformation();
+      if (forkedRunner == null) {
+        output = Runner.run(solver, sharedInput, scenario.getTimeLimit(), runInfo);
+      } else {
+        output = forkedRunner.run(solver, sharedInput, scenario.getTimeLimit(), runInfo);
+      }
+      if (runInfo.getResult() == RunInformation.RunResult.OK) {
+        verdict = scenario.getVerifier().verify(sharedInput, output);
+        if (verdict.getResult() == Verdict.Result.VALID_OUTPUT) {
+          verdict.setObjective(output.calculateObjectiveFunction());
+        }
+      } else {
+        verdict = new Verdict();
+        verdict.setResult(Verdict.Result.FAILED_TO_RUN);
+      }
+      verdict.setRunInformation(runInfo);
+      return null;
+    }
+  }
 }
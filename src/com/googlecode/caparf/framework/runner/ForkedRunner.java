@@ -0,0 +1,350 @@
+/*
+ * Copyright (C) 2010 Denis Nazarov <denis.nsc@gmail.com>.
+ *
+ * This file is part of caparf (http://code.google.com/p/caparf/).
+ *
+ * caparf is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * caparf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with caparf. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.caparf.framework.runner;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+
+import com.googlecode.caparf.framework.base.Algorithm;
+import com.googlecode.caparf.framework.base.BaseCodec;
+import com.googlecode.caparf.framework.base.BaseInput;
+import com.googlecode.caparf.framework.base.BaseItem;
+import com.googlecode.caparf.framework.base.BaseItemPlacement;
+import com.googlecode.caparf.framework.base.BaseOutput;
+import com.googlecode.caparf.framework.runner.RunInformation.RunResult;
+
+/**
+ * Runs algorithms in a pool of local child JVMs. This gives hard isolation of
+ * runs: algorithm that has to be stopped can not leave garbage, locked
+ * resources or JIT state that would skew timing of the next run, since the
+ * whole child JVM is killed.
+ * <p>
+ * Algorithm is passed to child JVM using Java serialization (see
+ * {@link Algorithm}), input and output are streamed over pipes using the given
+ * {@link BaseCodec}. Child JVM runs algorithm using {@link Runner}, so CPU time
+ * limits, {@link com.googlecode.caparf.framework.base.TimeLimitable} and
+ * {@link com.googlecode.caparf.framework.base.Interruptible} work exactly as
+ * for in-process runs. Child JVM is killed (with a signal) if run exceeds time
+ * limit or if it does not reply within {@code timeLimit + 2 * }
+ * {@link Runner#EXTRA_TIME_LIMIT}{@code + killDelay} milliseconds of
+ * wall-clock time. Healthy child JVMs are reused, so JVM startup is paid once
+ * per worker rather than once per run.
+ * <p>
+ * This class is thread-safe, at most {@code workers} runs are executed
+ * concurrently. Call {@link #shutdown()} once runner is not needed anymore.
+ *
+ * @param <I> algorithm input class
+ * @param <O> algorithm output class
+ *
+ * @author denis.nsc@gmail.com (Denis Nazarov)
+ * @see ForkedWorker
+ */
+public class ForkedRunner<I extends BaseInput<? extends BaseItem>,
+    O extends BaseOutput<? extends BaseItemPlacement>> {
+
+  /** Default wall-clock delay before unresponsive child JVM is killed. */
+  public static final long DEFAULT_KILL_DELAY = 2000;
+
+  /** Codec used to pass inputs and outputs. */
+  private final BaseCodec<I, O> codec;
+
+  /** Permits for running child JVMs. */
+  private final Semaphore availableWorkers;
+
+  /** Idle child JVMs ready to run algorithms. */
+  private final ConcurrentLinkedQueue<Child> idleChildren;
+
+  /** Timer used to kill unresponsive child JVMs. */
+  private final Timer killer;
+
+  /** Extra arguments of child JVMs. */
+  private List<String> jvmArguments;
+
+  /** Wall-clock delay before unresponsive child JVM is killed. */
+  private volatile long killDelay;
+
+  /** Whether the runner has been shut down. */
+  private volatile boolean shutdown;
+
+  /** Number of runs in progress, guarded by this. */
+  private int activeRuns;
+
+  /**
+   * Creates runner with the given number of child JVMs.
+   *
+   * @param codec codec used to pass inputs and outputs
+   * @param workers maximal number of child JVMs
+   */
+  public ForkedRunner(BaseCodec<I, O> codec, int workers) {
+    if (workers < 1) {
+      throw new IllegalArgumentException("number of workers must be positive");
+    }
+    this.codec = codec;
+    this.availableWorkers = new Semaphore(workers);
+    this.idleChildren = new ConcurrentLinkedQueue<Child>();
+    this.killer = new Timer("caparf-forked-runner-killer", true);
+    this.jvmArguments = Collections.emptyList();
+    this.killDelay = DEFAULT_KILL_DELAY;
+    this.shutdown = false;
+    this.activeRuns = 0;
+  }
+
+  /**
+   * Sets extra arguments of child JVMs, like heap size. It affects only child
+   * JVMs started afterwards.
+   *
+   * @param arguments child JVM arguments
+   */
+  public void setJvmArguments(String... arguments) {
+    List<String> list = new ArrayList<String>();
+    Collections.addAll(list, arguments);
+    this.jvmArguments = list;
+  }
+
+  /**
+   * Sets wall-clock delay in milliseconds after time limit plus extra time
+   * before child JVM that does not reply is killed.
+   *
+   * @param millis delay in milliseconds
+   */
+  public void setKillDelay(long millis) {
+    if (millis < 0) {
+      throw new IllegalArgumentException("kill delay is negative");
+    }
+    this.killDelay = millis;
+  }
+
+  /**
+   * Runs the given {@code algorithm} on the given {@code input} in child JVM
+   * with the given {@code timeLimit} in milliseconds. Information about
+   * algorithm run will be stored in the given {@code runInfo}.
+   *
+   * @param algorithm serializable algorithm to run
+   * @param input input that will be passed to algorithm
+   * @param timeLimit maximal time algorithm can run in milliseconds, {@code 0}
+   *          for infinity
+   * @param runInfo information about algorithm run, may be null
+   * @return algorithm output or null in case of any problems
+   * @throws IllegalStateException if runner has been shut down
+   */
+  public O run(Algorithm<I, O> algorithm, I input, long timeLimit, RunInformation runInfo) {
+    if (timeLimit < 0) {
+      throw new IllegalArgumentException("time limit is negative");
+    }
+    synchronized (this) {
+      if (shutdown) {
+        throw new IllegalStateException("runner has been shut down");
+      }
+      activeRuns++;
+    }
+    try {
+      return runInChild(algorithm, input, timeLimit, runInfo);
+    } finally {
+      boolean lastRun;
+      synchronized (this) {
+        // Killer is needed until the last run started before shutdown is over
+        lastRun = --activeRuns == 0 && shutdown;
+        if (lastRun) {
+          killer.cancel();
+        }
+      }
+      if (lastRun) {
+        // Child may have become idle after shutdown has stopped idle ones
+        exitIdleChildren();
+      }
+    }
+  }
+
+  /** Runs algorithm in some child JVM, see {@link #run}. */
+  private O runInChild(Algorithm<I, O> algorithm, I input, long timeLimit,
+      RunInformation runInfo) {
+    if (runInfo == null) {
+      runInfo = new RunInformation();
+    }
+    runInfo.setResult(RunResult.OK);
+
+    byte[] algorithmBytes;
+    try {
+      algorithmBytes = ForkedWorker.serialize(algorithm);
+    } catch (IOException e) {
+      runInfo.setException(e);
+      runInfo.setResult(RunResult.EXCEPTION);
+      return null;
+    }
+
+    availableWorkers.acquireUninterruptibly();
+    Child child = null;
+    try {
+      child = idleChildren.poll();
+      if (child == null) {
+        child = new Child();
+      }
+      O output = child.run(algorithmBytes, input, timeLimit, runInfo);
+      if (child.killed || shutdown || runInfo.getResult() == RunResult.TIME_LIMIT_EXCEDED) {
+        child.kill();
+      } else {
+        idleChildren.add(child);
+      }
+      return output;
+    } catch (IOException e) {
+      if (child != null && child.killed) {
+        runInfo.setResult(RunResult.TIME_LIMIT_EXCEDED);
+      } else {
+        runInfo.setException(e);
+        runInfo.setResult(RunResult.EXCEPTION);
+      }
+      if (child != null) {
+        child.kill();
+      }
+      return null;
+    } finally {
+      availableWorkers.release();
+    }
+  }
+
+  /**
+   * Stops all idle child JVMs, busy ones will be stopped after their runs.
+   * Runs in progress are completed as usual, new runs are rejected.
+   */
+  public void shutdown() {
+    synchronized (this) {
+      shutdown = true;
+      if (activeRuns == 0) {
+        killer.cancel();
+      }
+    }
+    exitIdleChildren();
+  }
+
+  /** Asks all idle child JVMs to exit. */
+  private void exitIdleChildren() {
+    for (Child child = idleChildren.poll(); child != null; child = idleChildren.poll()) {
+      child.exit();
+    }
+  }
+
+  /** Child JVM running {@link ForkedWorker}. */
+  private class Child {
+    private final Process process;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    /** Whether the child JVM has been killed. */
+    private volatile boolean killed;
+
+    /** Starts child JVM. */
+    public Child() throws IOException {
+      List<String> command = new ArrayList<String>();
+      command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator +
+          "java");
+      command.addAll(jvmArguments);
+      command.add("-cp");
+      command.add(System.getProperty("java.class.path"));
+      command.add(ForkedWorker.class.getName());
+      command.add(codec.getClass().getName());
+      process = new ProcessBuilder(command).start();
+      in = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+      out = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+      killed = false;
+
+      // Child's standard error must be drained, otherwise it can block
+      final InputStream errors = process.getErrorStream();
+      Thread drainer = new Thread("caparf-forked-runner-stderr") {
+        @Override
+        public void run() {
+          byte[] buffer = new byte[4096];
+          try {
+            for (int read = errors.read(buffer); read != -1; read = errors.read(buffer)) {
+              System.err.write(buffer, 0, read);
+            }
+          } catch (IOException e) {
+          }
+        }
+      };
+      drainer.setDaemon(true);
+      drainer.start();
+    }
+
+    /** Runs algorithm in child JVM and reads the result. */
+    public O run(byte[] algorithmBytes, I input, long timeLimit, RunInformation runInfo)
+        throws IOException {
+      out.writeByte(ForkedWorker.COMMAND_RUN);
+      ForkedWorker.writeBytes(out, algorithmBytes);
+      out.writeLong(timeLimit);
+      codec.writeInput(out, input);
+      out.flush();
+
+      TimerTask killTask = null;
+      if (timeLimit > 0) {
+        killTask = new TimerTask() {
+          @Override
+          public void run() {
+            kill();
+          }
+        };
+        killer.schedule(killTask, timeLimit + 2 * Runner.EXTRA_TIME_LIMIT + killDelay);
+      }
+      try {
+        runInfo.setResult(RunResult.values()[in.readByte()]);
+        runInfo.setTimeElapsed(in.readLong());
+        if (in.readBoolean()) {
+          try {
+            runInfo.setException((Exception) ForkedWorker.deserialize(
+                ForkedWorker.readBytes(in)));
+          } catch (ClassNotFoundException e) {
+            runInfo.setException(e);
+          }
+        }
+        return in.readBoolean() ? codec.readOutput(in, input) : null;
+      } finally {
+        if (killTask != null) {
+          killTask.cancel();
+        }
+      }
+    }
+
+    /** Kills child JVM. */
+    public void kill() {
+      killed = true;
+      process.destroy();
+    }
+
+    /** Asks child JVM to exit. */
+    public void exit() {
+      try {
+        out.writeByte(ForkedWorker.COMMAND_EXIT);
+        out.close();
+      } catch (IOException e) {
+        kill();
+      }
+    }
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2010 Denis Nazarov <denis.nsc@gmail.com>.
+ *
+ * This file is part of caparf (http://code.google.com/p/caparf/).
+ *
+ * caparf is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * caparf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with caparf. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.caparf.framework.runner;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+
+import com.googlecode.caparf.framework.base.Algorithm;
+import com.googlecode.caparf.framework.base.BaseCodec;
+import com.googlecode.caparf.framework.base.BaseInput;
+import com.googlecode.caparf.framework.base.BaseItem;
+import com.googlecode.caparf.framework.base.BaseItemPlacement;
+import com.googlecode.caparf.framework.base.BaseOutput;
+
+/**
+ * Entry point of child JVM started by {@link ForkedRunner}. Worker reads run
+ * requests from standard input, runs algorithms with {@link Runner} and writes
+ * results to standard output until standard input is closed or exit command is
+ * received. Everything algorithms print to standard output is redirected to
+ * standard error.
+ * <p>
+ * Run request consists of command byte, serialized algorithm, time limit and
+ * input encoded by codec which class name is given as the only argument. Reply
+ * consists of {@link RunInformation} fields followed by output encoded by the
+ * same codec.
+ *
+ * @author denis.nsc@gmail.com (Denis Nazarov)
+ */
+public final class ForkedWorker {
+
+  /** Command that asks worker to exit. */
+  static final byte COMMAND_EXIT = 0;
+
+  /** Command that asks worker to run algorithm. */
+  static final byte COMMAND_RUN = 1;
+
+  private ForkedWorker() {
+  }
+
+  /**
+   * Serves run requests.
+   *
+   * @param args name of codec class
+   */
+  public static void main(String[] args) throws Exception {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(System.in));
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+        new FileOutputStream(FileDescriptor.out)));
+    System.setOut(System.err);
+    if (ManagementFactory.getThreadMXBean().isThreadCpuTimeSupported()) {
+      ManagementFactory.getThreadMXBean().setThreadCpuTimeEnabled(true);
+    }
+    serve(createCodec(args[0]), in, out);
+  }
+
+  /** Creates codec of the given class by its public no-argument constructor. */
+  private static BaseCodec<?, ?> createCodec(String className) {
+    try {
+      return (BaseCodec<?, ?>) Class.forName(className).getConstructor().newInstance();
+    } catch (InvocationTargetException e) {
+      System.err.println("ERROR: Codec " + className + " can't be created: " + e.getCause());
+    } catch (ClassNotFoundException e) {
+      System.err.println("ERROR: Codec " + className + " can't be created: " + e);
+    } catch (NoSuchMethodException e) {
+      System.err.println("ERROR: Codec " + className + " can't be created: " + e);
+    } catch (InstantiationException e) {
+      System.err.println("ERROR: Codec " + className + " can't be created: " + e);
+    } catch (IllegalAccessException e) {
+      System.err.println("ERROR: Codec " + className + " can't be created: " + e);
+    }
+    System.exit(1);
+    return null;
+  }
+
+  /** Serves run requests until exit command or end of stream. */
+  private static <I extends BaseInput<? extends BaseItem>,
+      O extends BaseOutput<? extends BaseItemPlacement>> void serve(BaseCodec<I, O> codec,
+          DataInputStream in, DataOutputStream out) throws IOException, ClassNotFoundException {
+    while (true) {
+      byte command;
+      try {
+        command = in.readByte();
+      } catch (EOFException e) {
+        return;
+      }
+      if (command == COMMAND_EXIT) {
+        return;
+      }
+      @SuppressWarnings("unchecked")
+      Algorithm<I, O> algorithm = (Algorithm<I, O>) deserialize(readBytes(in));
+      long timeLimit = in.readLong();
+      I input = codec.readInput(in);
+
+      RunInformation runInfo = new RunInformation();
+      O output = Runner.run(algorithm, input, timeLimit, runInfo);
+
+      out.writeByte(runInfo.getResult().ordinal());
+      out.writeLong(runInfo.getTimeElapsed());
+      Exception exception = runInfo.getException();
+      out.writeBoolean(exception != null);
+      if (exception != null) {
+        byte[] exceptionBytes;
+        try {
+          exceptionBytes = serialize(exception);
+        } catch (NotSerializableException e) {
+          exceptionBytes = serialize(new Exception(exception.toString()));
+        }
+        writeBytes(out, exceptionBytes);
+      }
+      out.writeBoolean(output != null);
+      if (output != null) {
+        codec.writeOutput(out, output);
+      }
+      out.flush();
+    }
+  }
+
+  /**
+   * Serializes the given {@code object}.
+   *
+   * @throws NotSerializableException if {@code object} is not serializable
+   */
+  static byte[] serialize(Object object) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ObjectOutputStream objectOut = new ObjectOutputStream(bytes);
+    objectOut.writeObject(object);
+    objectOut.close();
+    return bytes.toByteArray();
+  }
+
+  /** Deserializes object serialized by {@link #serialize}. */
+  static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+    ObjectInputStream objectIn = new ObjectInputStream(new ByteArrayInputStream(bytes));
+    try {
+      return objectIn.readObject();
+    } finally {
+      objectIn.close();
+    }
+  }
+
+  /** Writes the given {@code bytes} prefixed by their number. */
+  static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /** Reads bytes written by {@link #writeBytes}. */
+  static byte[] readBytes(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return bytes;
+  }
+}
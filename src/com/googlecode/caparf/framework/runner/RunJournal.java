@@ -0,0 +1,281 @@
+/*
+ * Copyright (C) 2010 Denis Nazarov <denis.nsc@gmail.com>.
+ *
+ * This file is part of caparf (http://code.google.com/p/caparf/).
+ *
+ * caparf is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * caparf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with caparf. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.caparf.framework.runner;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UTFDataFormatException;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.googlecode.caparf.framework.base.Verdict;
+
+/**
+ * Append-only journal of finished (algorithm, input) runs that allows to
+ * resume interrupted scenario run.
+ * <p>
+ * Journal file starts with magic number and format version followed by
+ * records. Each record is the length of record's body followed by the body:
+ * algorithm display name, input identifier, verdict (result, comment,
+ * objective) and run information (result, elapsed time, exception). Strings
+ * are written as length followed by UTF-8 bytes, so there is no limit on their
+ * length (version 1 used {@link DataOutputStream#writeUTF(String)}). Every
+ * record is written and flushed by single write, so at most the last record
+ * is lost if process dies. Truncated last record is discarded when journal is
+ * opened.
+ *
+ * @author denis.nsc@gmail.com (Denis Nazarov)
+ */
+final class RunJournal {
+
+  /** Magic number of journal file. */
+  private static final int MAGIC = 0x43504a52;
+
+  /** Version of journal file format. */
+  private static final int VERSION = 2;
+
+  /** Version of journal file format with strings limited to 64 KB. */
+  private static final int VERSION_MODIFIED_UTF8 = 1;
+
+  /** Charset of strings in journal. */
+  private static final String CHARSET = "UTF-8";
+
+  /** Size of journal file header in bytes. */
+  private static final int HEADER_SIZE = 8;
+
+  private static final byte NO_OBJECTIVE = 0;
+  private static final byte LONG_OBJECTIVE = 1;
+  private static final byte DOUBLE_OBJECTIVE = 2;
+
+  /** Verdicts of journaled runs keyed by {@link #key(String, String)}. */
+  private final Map<String, Verdict> verdicts;
+
+  /** Version of journal file format, records are appended in it. */
+  private final int version;
+
+  private final DataOutputStream out;
+
+  private RunJournal(Map<String, Verdict> verdicts, int version, DataOutputStream out) {
+    this.verdicts = verdicts;
+    this.version = version;
+    this.out = out;
+  }
+
+  /**
+   * Opens journal stored in the given {@code file} creating it if necessary.
+   *
+   * @param file journal file
+   * @return opened journal
+   * @throws IOException if journal can't be read or isn't valid journal
+   */
+  public static RunJournal open(File file) throws IOException {
+    Map<String, Verdict> verdicts = new HashMap<String, Verdict>();
+    int version = VERSION;
+    long validLength = 0;
+    // Shorter file is left by process that died while writing header
+    if (file.length() >= HEADER_SIZE) {
+      DataInputStream in =
+          new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+      try {
+        if (in.readInt() != MAGIC) {
+          throw new IOException(file + " is not run journal");
+        }
+        version = in.readInt();
+        if (version != VERSION && version != VERSION_MODIFIED_UTF8) {
+          throw new IOException("Unsupported run journal version " + version + " in " + file);
+        }
+        validLength = HEADER_SIZE;
+        while (true) {
+          int length;
+          try {
+            length = in.readInt();
+          } catch (EOFException e) {
+            // There are no more records or length of the last one is truncated
+            break;
+          }
+          if (length < 0 || length > file.length() - validLength - 4) {
+            // Body of the last record is truncated
+            break;
+          }
+          byte[] record = new byte[length];
+          in.readFully(record);
+          readRecord(record, version, verdicts);
+          validLength += 4 + record.length;
+        }
+      } finally {
+        in.close();
+      }
+      RandomAccessFile raf = new RandomAccessFile(file, "rw");
+      try {
+        raf.setLength(validLength);
+      } finally {
+        raf.close();
+      }
+    }
+    DataOutputStream out = new DataOutputStream(new FileOutputStream(file, validLength > 0));
+    if (validLength == 0) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.flush();
+    }
+    return new RunJournal(verdicts, version, out);
+  }
+
+  /**
+   * Returns verdict of journaled run of algorithm named {@code algorithmName}
+   * on input identified by {@code inputId}.
+   *
+   * @return journaled verdict or null if there is no such run in journal
+   */
+  public Verdict lookup(String algorithmName, String inputId) {
+    return verdicts.get(key(algorithmName, inputId));
+  }
+
+  /**
+   * Appends record about finished run to journal.
+   *
+   * @param algorithmName display name of algorithm
+   * @param inputId input identifier
+   * @param verdict verdict of the run
+   * @throws IOException if an I/O error occurs
+   */
+  public void append(String algorithmName, String inputId, Verdict verdict) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream record = new DataOutputStream(bytes);
+    record.writeInt(0);
+    writeString(record, algorithmName);
+    writeString(record, inputId);
+    record.writeByte(verdict.getResult().ordinal());
+    writeNullableString(record, verdict.getComment());
+    Number objective = verdict.getObjective();
+    if (objective == null) {
+      record.writeByte(NO_OBJECTIVE);
+    } else if (objective instanceof Integer || objective instanceof Long
+        || objective instanceof Short || objective instanceof Byte) {
+      record.writeByte(LONG_OBJECTIVE);
+      record.writeLong(objective.longValue());
+    } else {
+      record.writeByte(DOUBLE_OBJECTIVE);
+      record.writeDouble(objective.doubleValue());
+    }
+    RunInformation runInfo = verdict.getRunInformation();
+    record.writeByte(runInfo.getResult().ordinal());
+    record.writeLong(runInfo.getTimeElapsed());
+    Exception exception = runInfo.getException();
+    writeNullableString(record, exception == null ? null : exception.toString());
+    record.flush();
+
+    byte[] data = bytes.toByteArray();
+    int length = data.length - 4;
+    data[0] = (byte) (length >>> 24);
+    data[1] = (byte) (length >>> 16);
+    data[2] = (byte) (length >>> 8);
+    data[3] = (byte) length;
+    out.write(data);
+    out.flush();
+    verdicts.put(key(algorithmName, inputId), verdict);
+  }
+
+  /** Closes journal file. */
+  public void close() throws IOException {
+    out.close();
+  }
+
+  private static void readRecord(byte[] record, int version, Map<String, Verdict> verdicts)
+      throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+    String algorithmName = readString(in, version);
+    String inputId = readString(in, version);
+    Verdict verdict = new Verdict();
+    verdict.setResult(Verdict.Result.values()[in.readByte()]);
+    verdict.setComment(readNullableString(in, version));
+    switch (in.readByte()) {
+      case LONG_OBJECTIVE:
+        verdict.setObjective(in.readLong());
+        break;
+      case DOUBLE_OBJECTIVE:
+        verdict.setObjective(in.readDouble());
+        break;
+    }
+    RunInformation runInfo = new RunInformation();
+    runInfo.setResult(RunInformation.RunResult.values()[in.readByte()]);
+    runInfo.setTimeElapsed(in.readLong());
+    String exception = readNullableString(in, version);
+    if (exception != null) {
+      runInfo.setException(new Exception(exception));
+    }
+    verdict.setRunInformation(runInfo);
+    verdicts.put(key(algorithmName, inputId), verdict);
+  }
+
+  private void writeNullableString(DataOutputStream out, String s) throws IOException {
+    out.writeBoolean(s != null);
+    if (s != null) {
+      writeString(out, s);
+    }
+  }
+
+  private void writeString(DataOutputStream out, String s) throws IOException {
+    if (version == VERSION_MODIFIED_UTF8) {
+      // Appending to old journal keeps its format, too long strings are cut
+      while (true) {
+        try {
+          out.writeUTF(s);
+          return;
+        } catch (UTFDataFormatException e) {
+          s = s.substring(0, s.length() / 2);
+        }
+      }
+    }
+    byte[] bytes = s.getBytes(CHARSET);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readNullableString(DataInputStream in, int version) throws IOException {
+    return in.readBoolean() ? readString(in, version) : null;
+  }
+
+  private static String readString(DataInputStream in, int version) throws IOException {
+    if (version == VERSION_MODIFIED_UTF8) {
+      return in.readUTF();
+    }
+    int length = in.readInt();
+    if (length < 0 || length > in.available()) {
+      throw new IOException("Corrupted run journal record");
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, CHARSET);
+  }
+
+  private static String key(String algorithmName, String inputId) {
+    return algorithmName + '\n' + inputId;
+  }
+}
@@ -57,7 +57,9 @@ public class RunListener<I extends BaseInput<? extends BaseItem>,
 
   /**
    * Called when an {@code algorithm} has solved {@code input}, whether it
-   * succeeds or fails.
+   * succeeds or fails. {@code output} is null for runs replayed from the run
+   * journal (look at {@link CaparfCore#setJournal(java.io.File)}), use
+   * {@link Verdict#getObjective()} to get objective function value.
    */
   public void testFinished(Algorithm<I, O> algorithm, I input, O output, Verdict verdict)
       throws Exception {
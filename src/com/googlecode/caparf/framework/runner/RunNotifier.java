@@ -19,7 +19,9 @@
 
 package com.googlecode.caparf.framework.runner;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 
@@ -32,54 +34,245 @@ import com.googlecode.caparf.framework.base.Verdict;
 
 /**
  * This class is used by Runner to notify Caparf of progress running scenario.
+ * <p>
+ * By default listeners are notified synchronously by the thread that fires
+ * event. Use {@link #setAsynchronous(int, Backpressure)} to notify listeners by
+ * the dedicated dispatcher thread, so that slow listeners do not slow down the
+ * scenario run. Events are put into bounded queue and are dispatched in
+ * exactly the same order as they were fired. {@link #fireScenarioRunFinished()}
+ * returns only after all events have been dispatched. In both modes listener
+ * that throws an exception is removed.
  */
 public class RunNotifier<I extends BaseInput<? extends BaseItem>,
     O extends BaseOutput<? extends BaseItemPlacement>> {
 
+  /** Policies applied when asynchronous notifier's event queue is full. */
+  public static enum Backpressure {
+    /** Thread that fires event waits until there is room in the queue. */
+    BLOCK,
+    /**
+     * Thread that fires event dispatches queued events itself until there is
+     * room in the queue.
+     */
+    DISPATCH_IN_CALLER
+  }
+
   private final List<RunListener<I, O>> listeners = new ArrayList<RunListener<I, O>>();
 
+  /** Events fired but not yet dispatched, guarded by itself. */
+  private final Deque<SafeNotifier> queue = new ArrayDeque<SafeNotifier>();
+
+  /** Maximal size of the queue, 0 if listeners are notified synchronously. */
+  private int queueCapacity = 0;
+
+  /** Policy applied when queue is full. */
+  private Backpressure backpressure = Backpressure.BLOCK;
+
+  /**
+   * Whether some thread is dispatching event taken from the queue. At most one
+   * event is dispatched at a time, so events are dispatched in order even if
+   * thread firing events helps to dispatch them.
+   */
+  private boolean dispatching = false;
+
+  /** Whether dispatcher thread should stop once the queue is empty. */
+  private boolean stopDispatcher = false;
+
+  /** Dispatcher thread, null if it is not started. */
+  private Thread dispatcher = null;
+
   /** Internal use only. */
   public void addListener(RunListener<I, O> listener) {
-    listeners.add(listener);
+    synchronized (listeners) {
+      listeners.add(listener);
+    }
   }
 
   /** Internal use only. */
   public void removeListener(RunListener<I, O> listener) {
-    listeners.remove(listener);
+    synchronized (listeners) {
+      listeners.remove(listener);
+    }
+  }
+
+  /**
+   * Makes notifier to dispatch events asynchronously by dedicated thread.
+   *
+   * @param queueCapacity maximal number of not yet dispatched events
+   * @param backpressure policy applied when there are {@code queueCapacity}
+   *          not yet dispatched events
+   */
+  public synchronized void setAsynchronous(int queueCapacity, Backpressure backpressure) {
+    if (queueCapacity < 1) {
+      throw new IllegalArgumentException("queue capacity must be positive");
+    }
+    if (dispatcher != null) {
+      throw new IllegalStateException("mode can not be changed while scenario is running");
+    }
+    this.queueCapacity = queueCapacity;
+    this.backpressure = backpressure;
+  }
+
+  /** Makes notifier to dispatch events synchronously (default). */
+  public synchronized void setSynchronous() {
+    if (dispatcher != null) {
+      throw new IllegalStateException("mode can not be changed while scenario is running");
+    }
+    this.queueCapacity = 0;
   }
 
   private abstract class SafeNotifier {
     void run() {
-      for (Iterator<RunListener<I, O>> all = listeners.iterator(); all.hasNext();)
-        try {
-          notifyListener(all.next());
-        } catch (Exception e) {
-          e.printStackTrace();
-          all.remove();
-        }
+      synchronized (listeners) {
+        for (Iterator<RunListener<I, O>> all = listeners.iterator(); all.hasNext();)
+          try {
+            notifyListener(all.next());
+          } catch (Exception e) {
+            System.err.println("ERROR: Listener failed and is removed");
+            e.printStackTrace();
+            all.remove();
+          }
+      }
     }
 
     abstract protected void notifyListener(RunListener<I, O> each) throws Exception;
   }
 
+  /** Dispatches the given event now or puts it into the queue. */
+  private synchronized void fire(SafeNotifier event) {
+    if (queueCapacity == 0) {
+      event.run();
+      return;
+    }
+    if (dispatcher == null) {
+      startDispatcher();
+    }
+    boolean interrupted = false;
+    while (true) {
+      SafeNotifier head = null;
+      synchronized (queue) {
+        if (queue.size() < queueCapacity) {
+          queue.addLast(event);
+          queue.notifyAll();
+          break;
+        }
+        if (backpressure == Backpressure.DISPATCH_IN_CALLER && !dispatching) {
+          head = queue.removeFirst();
+          dispatching = true;
+        } else {
+          try {
+            queue.wait();
+          } catch (InterruptedException e) {
+            interrupted = true;
+          }
+        }
+      }
+      if (head != null) {
+        dispatch(head);
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Notifies listeners of the given event, which has been taken from the queue
+   * after setting {@code dispatching} flag.
+   */
+  private void dispatch(SafeNotifier event) {
+    try {
+      event.run();
+    } finally {
+      synchronized (queue) {
+        dispatching = false;
+        queue.notifyAll();
+      }
+    }
+  }
+
+  /** Starts dispatcher thread. */
+  private void startDispatcher() {
+    stopDispatcher = false;
+    dispatcher = new Thread("caparf-run-notifier") {
+      @Override
+      public void run() {
+        while (true) {
+          SafeNotifier head;
+          synchronized (queue) {
+            while (dispatching || (queue.isEmpty() && !stopDispatcher)) {
+              try {
+                queue.wait();
+              } catch (InterruptedException e) {
+                // Dispatcher is stopped only by flush()
+              }
+            }
+            if (queue.isEmpty()) {
+              return;
+            }
+            head = queue.removeFirst();
+            dispatching = true;
+            queue.notifyAll();
+          }
+          try {
+            dispatch(head);
+          } catch (Throwable e) {
+            // Dispatcher must survive, otherwise threads firing events wait forever
+            System.err.println("ERROR: Failed to dispatch event");
+            e.printStackTrace();
+          }
+        }
+      }
+    };
+    dispatcher.setDaemon(true);
+    dispatcher.start();
+  }
+
+  /**
+   * Waits until all queued events are dispatched and stops dispatcher. Does
+   * nothing if dispatcher is not started.
+   */
+  synchronized void flush() {
+    if (dispatcher == null) {
+      return;
+    }
+    synchronized (queue) {
+      stopDispatcher = true;
+      queue.notifyAll();
+    }
+    boolean interrupted = false;
+    while (dispatcher.isAlive()) {
+      try {
+        dispatcher.join();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    dispatcher = null;
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
   /** Do not invoke. */
   public void fireScenarioRunStarted(final Scenario<I, O> scenario) {
-    new SafeNotifier() {
+    fire(new SafeNotifier() {
       @Override
       protected void notifyListener(RunListener<I, O> each) throws Exception {
         each.scenarioRunStarted(scenario);
       };
-    }.run();
+    });
   }
 
   /** Do not invoke. */
   public void fireScenarioRunFinished() {
-    new SafeNotifier() {
+    fire(new SafeNotifier() {
       @Override
       protected void notifyListener(RunListener<I, O> each) throws Exception {
         each.scenarioRunFinished();
       };
-    }.run();
+    });
+    flush();
   }
 
   /**
@@ -87,12 +280,12 @@ public class RunNotifier<I extends BaseInput<? extends BaseItem>,
    * on {@code input}.
    */
   public void fireTestStarted(final Algorithm<I, O> algorithm, final I input) {
-    new SafeNotifier() {
+    fire(new SafeNotifier() {
       @Override
       protected void notifyListener(RunListener<I, O> each) throws Exception {
         each.testStarted(algorithm, input);
       };
-    }.run();
+    });
   }
 
   /**
@@ -100,11 +293,11 @@ public class RunNotifier<I extends BaseInput<? extends BaseItem>,
    */
   public void fireTestFinished(final Algorithm<I, O> algorithm, final I input, final O output,
       final Verdict verdict) {
-    new SafeNotifier() {
+    fire(new SafeNotifier() {
       @Override
       protected void notifyListener(RunListener<I, O> each) throws Exception {
         each.testFinished(algorithm, input, output, verdict);
       };
-    }.run();
+    });
   }
 }
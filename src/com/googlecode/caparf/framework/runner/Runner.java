@@ -21,14 +21,16 @@ package com.googlecode.caparf.framework.runner;
 
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
 import com.googlecode.caparf.framework.base.Algorithm;
 import com.googlecode.caparf.framework.base.BaseInput;
 import com.googlecode.caparf.framework.base.BaseItem;
 import com.googlecode.caparf.framework.base.BaseItemPlacement;
 import com.googlecode.caparf.framework.base.BaseOutput;
-import com.googlecode.caparf.framework.base.Interruptible;
 import com.googlecode.caparf.framework.base.LowerBound;
 import com.googlecode.caparf.framework.base.TimeLimitable;
 import com.googlecode.caparf.framework.runner.RunInformation.RunResult;
@@ -38,6 +40,13 @@ import com.googlecode.caparf.framework.runner.RunInformation.RunResult;
  * safely (i.e. all exceptions will be caught) and returns result of run.
  * Additionally, information about occurred error (like exceeding time limit or
  * thrown exception) and time elapsed during run can be retrieved.
+ * <p>
+ * Tasks are executed by a pool of long-lived worker threads, so no thread is
+ * created per run. CPU time of a run is measured as the difference of worker
+ * thread CPU time before and after the run. Worker is retired only when it had
+ * to be forcibly stopped after exceeding the time limit. Time limits of all
+ * running tasks are enforced by the single {@link Watchdog} thread, so the
+ * calling thread just waits for the task to finish.
  *
  * @author denis.nsc@gmail.com (Denis Nazarov)
  */
@@ -52,6 +61,12 @@ public final class Runner {
   /** Maximal possible error in clock subtracted from 1. */
   protected static final double CLOCK_ERROR = 0.95;
 
+  /** Idle worker threads ready to run tasks. */
+  private static final Deque<Worker> idleWorkers = new ArrayDeque<Worker>();
+
+  /** Number of worker threads created so far, used for naming them. */
+  private static int createdWorkers = 0;
+
   /**
    * Runs the given {@code algorithm} on the given {@code input} without time
    * limit.
@@ -185,65 +200,51 @@ public final class Runner {
   /**
    * This function does the real work. It runs a {@code task} and collects its
    * result, exception (if any) and run statistics. Also it notifies {@code
-   * listener} on run phases if it implements needed interfaces.
+   * listener} on run phases if it implements needed interfaces. Time limit is
+   * enforced by {@link Watchdog}, this thread only waits for the task to
+   * finish or to be stopped.
    */
-  @SuppressWarnings("deprecation")  // for Thread.stop()
   private static <T> T run(Callable<T> task, Object listener, long timeLimit,
       RunInformation runInfo) {
     if (timeLimit < 0) {
       throw new IllegalArgumentException("time limit is negative");
     }
 
-    // Task will be executed in a separate thread
+    // Task will be executed by a pooled worker thread
     Wrapper<T> wrapper = new Wrapper<T>(task);
-    Thread job = new Thread(wrapper);
+    Worker worker = acquireWorker();
     if (runInfo != null) {
       runInfo.setResult(RunResult.OK);
     }
-    long jobId = job.getId();
 
     // Let listener know the time limit if it is interested in it
     if (listener instanceof TimeLimitable) {
       ((TimeLimitable) listener).setTimeLimit(timeLimit);
     }
 
-    // ThreadMXBean interface to JVM is used to measure CPU time
-    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
-    job.start();
-    long limit = timeLimit;
-    while (limit >= EXTRA_TIME_LIMIT && job.isAlive()) {
-      try {
-        // Job can consume a little bit more than limit during job.join(limit)
-        limit = (long) (limit * CLOCK_ERROR);
-        job.join(limit);
-      } catch (InterruptedException e) {
-      }
-      limit = timeLimit - threadMXBean.getThreadCpuTime(jobId) / NANOS_PER_MILLIS;
+    // ThreadMXBean interface to JVM is used to measure CPU time. Idle worker
+    // does not consume CPU, so its current CPU time is the start of the run.
+    long startCpuTime = ManagementFactory.getThreadMXBean().getThreadCpuTime(worker.getId());
+    worker.execute(wrapper);
+    Watchdog.Deadline deadline = null;
+    if (timeLimit > 0) {
+      deadline = Watchdog.getSingleton().watch(worker, wrapper, listener, startCpuTime,
+          timeLimit);
     }
+    wrapper.await();
 
-    // Notify (if possible) listener that time is about to exceed the limit and
-    // give job extra time to finish its work
-    if (job.isAlive()) {
-      if (listener instanceof Interruptible) {
-        ((Interruptible) listener).interrupt();
-      }
-      try {
-        job.join(EXTRA_TIME_LIMIT);
-      } catch (InterruptedException e) {
-      }
-    }
-
-    // Stop thread if it is alive after time limit plus epsilon. Thread.stop()
-    // is deprecated since it can be unsafe to stop thread this way. However, it
-    // is the only possible way to terminate the thread in our case. Moreover,
-    // it is more or less safe to stop thread with algorithm (or lower bound)
-    // since it does not lock any resources needed for CAPARF.
-    if (job.isAlive()) {
+    // Worker stopped by watchdog is not returned to the pool
+    if (wrapper.isAbandoned()) {
       if (runInfo != null) {
         runInfo.setResult(RunResult.TIME_LIMIT_EXCEDED);
+        runInfo.setTimeElapsed(wrapper.getTimeElapsed());
       }
-      job.stop();
+      return null;
     }
+    if (deadline != null) {
+      Watchdog.getSingleton().cancel(deadline);
+    }
+    releaseWorker(worker);
 
     if (runInfo != null) {
       runInfo.setTimeElapsed(wrapper.getTimeElapsed());
@@ -257,49 +258,160 @@ public final class Runner {
     return wrapper.getResult();
   }
 
+  /** Takes idle worker from the pool or creates a new one. */
+  private static Worker acquireWorker() {
+    synchronized (idleWorkers) {
+      Worker worker = idleWorkers.pollFirst();
+      if (worker == null) {
+        worker = new Worker("caparf-runner-" + (++createdWorkers));
+        worker.start();
+      }
+      return worker;
+    }
+  }
+
+  /** Returns worker that has finished its task to the pool. */
+  private static void releaseWorker(Worker worker) {
+    synchronized (idleWorkers) {
+      idleWorkers.addFirst(worker);
+    }
+  }
+
+  /** Long-lived daemon thread that executes tasks one by one. */
+  private static class Worker extends Thread {
+    /** Task to execute next, guarded by {@code this}. */
+    private Wrapper<?> task;
+
+    public Worker(String name) {
+      super(name);
+      setDaemon(true);
+    }
+
+    /** Hands the given {@code task} to this worker. */
+    public synchronized void execute(Wrapper<?> task) {
+      this.task = task;
+      notifyAll();
+    }
+
+    @Override
+    public void run() {
+      while (true) {
+        Wrapper<?> current;
+        synchronized (this) {
+          while (task == null) {
+            try {
+              wait();
+            } catch (InterruptedException e) {
+            }
+          }
+          current = task;
+          task = null;
+        }
+        current.run();
+      }
+    }
+  }
+
   /** Wraps callable task, executes it and collects all parameters. */
-  private static class Wrapper<T> implements Runnable {
+  private static class Wrapper<T> implements Runnable, Watchdog.StoppableTask {
     private Callable<T> task;
     private T result;
     private Exception exception;
     private long timeElapsed;
+    /** Whether the task has finished, guarded by {@code this}. */
+    private boolean done;
+    /** Whether the task has been abandoned by watchdog, guarded by {@code this}. */
+    private boolean abandoned;
 
     public Wrapper(Callable<T> task) {
       this.task = task;
       this.result = null;
       this.exception = null;
+      this.done = false;
+      this.abandoned = false;
     }
 
     @Override
     public void run() {
+      ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+      long startCpuTime = threadMXBean.getCurrentThreadCpuTime();
+      T taskResult = null;
+      Exception taskException = null;
       try {
-        result = task.call();
+        taskResult = task.call();
       } catch (Exception e) {
-        result = null;
-        exception = e;
+        taskException = e;
+      } catch (Error e) {
+        if (e instanceof ThreadDeath) {
+          // Worker is being stopped, it should not survive
+          throw e;
+        }
+        taskException = new ExecutionException(e);
+      }
+      long taskTimeElapsed =
+          (threadMXBean.getCurrentThreadCpuTime() - startCpuTime) / NANOS_PER_MILLIS;
+      synchronized (this) {
+        if (!abandoned) {
+          result = taskResult;
+          exception = taskException;
+          timeElapsed = taskTimeElapsed;
+          done = true;
+          notifyAll();
+        }
+      }
+    }
+
+    /** Waits for the task to finish or to be abandoned. */
+    public synchronized void await() {
+      while (!done && !abandoned) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+        }
       }
-      timeElapsed = ManagementFactory.getThreadMXBean().getCurrentThreadCpuTime() /
-          NANOS_PER_MILLIS;
+    }
+
+    @Override
+    public synchronized boolean isDone() {
+      return done;
+    }
+
+    @Override
+    public synchronized boolean abandon(long timeElapsed) {
+      if (done) {
+        return false;
+      }
+      this.abandoned = true;
+      this.timeElapsed = timeElapsed;
+      notifyAll();
+      return true;
+    }
+
+    /**
+     * @return whether the task has been abandoned after exceeding time limit
+     */
+    public synchronized boolean isAbandoned() {
+      return abandoned;
     }
 
     /**
      * @return task result, may be null
      */
-    public T getResult() {
+    public synchronized T getResult() {
       return result;
     }
 
     /**
      * @return thrown exception, may be null
      */
-    public Exception getException() {
+    public synchronized Exception getException() {
       return exception;
     }
 
     /**
-     * @return time elapsed for this thread
+     * @return CPU time elapsed for the task
      */
-    public long getTimeElapsed() {
+    public synchronized long getTimeElapsed() {
       return timeElapsed;
     }
   }
@@ -112,12 +112,13 @@ public class Scenario<I extends BaseInput<? extends BaseItem>,
   }
 
   /**
-   * Adds suite of inputs to the scenario.
+   * Adds suite of inputs to the scenario. Generated inputs of the suite stay
+   * generated, i.e. they are produced on demand while scenario is run.
    *
    * @param suite suite of inputs to add
    */
   public void addInputSuite(InputSuite<? extends I> suite) {
-    this.inputs.addAll(suite.getAll());
+    this.inputs.addAll(suite);
   }
 
   /**
@@ -30,15 +30,17 @@ import com.googlecode.caparf.framework.base.BaseInput;
 import com.googlecode.caparf.framework.base.BaseItem;
 import com.googlecode.caparf.framework.base.BaseItemPlacement;
 import com.googlecode.caparf.framework.base.BaseOutput;
-import com.googlecode.caparf.framework.base.InputSuite;
 import com.googlecode.caparf.framework.base.LowerBound;
 import com.googlecode.caparf.framework.base.ObjectiveComparator;
 import com.googlecode.caparf.framework.base.Verdict;
 import com.googlecode.caparf.framework.base.Verdict.Result;
+import com.googlecode.caparf.framework.util.InputContentMap;
 
 /**
  * Listener that collects statistics during algorithm's execution and displays
- * it in text form.
+ * it in text form. Tree of input identifiers is built as inputs are run, so
+ * inputs of streaming suites are not kept by the listener. Lower bound is
+ * calculated once per input when its first run is started.
  *
  * @author denis.nsc@gmail.com (Denis Nazarov)
  */
@@ -51,9 +53,18 @@ public class StatsCollectorListener<I extends BaseInput<? extends BaseItem>,
   /** Sorted list of algorithm display names. */
   private List<String> algorithmNames;
 
-  /** Root of sorted input identifiers tree. */
+  /** Root of input identifiers tree, it is sorted when scenario is finished. */
   private Node root;
 
+  /** Input of the last started run. */
+  private I lastInput;
+
+  /**
+   * Lower bounds by input content or null if inputs are streamed and lower
+   * bounds are not cached.
+   */
+  private InputContentMap<I, Double> lowerBounds;
+
   public StatsCollectorListener(LowerBound<I> lowerBound) {
     this.lowerBound = lowerBound;
   }
@@ -66,12 +77,26 @@ public class StatsCollectorListener<I extends BaseInput<? extends BaseItem>,
     }
     Collections.sort(algorithmNames);
 
-    root = buildSortedInputsTree(scenario.getInputs());
+    root = new Node("root");
+    lastInput = null;
+    lowerBounds = scenario.getInputs().isStreaming() ? null : new InputContentMap<I, Double>();
   }
 
   @Override
   public void scenarioRunFinished() throws Exception {
+    root.normalize();
     printTree(root, "");
+    lastInput = null;
+    lowerBounds = null;
+  }
+
+  @Override
+  public void testStarted(Algorithm<I, O> algorithm, I input) throws Exception {
+    // All runs on the same input are consecutive
+    if (input != lastInput) {
+      root.addNode(input.getIdentifier(), calculateLowerBound(input));
+      lastInput = input;
+    }
   }
 
   @Override
@@ -80,6 +105,18 @@ public class StatsCollectorListener<I extends BaseInput<? extends BaseItem>,
     root.collect(input.getIdentifier(), algorithm.getDisplayName(), output, verdict);
   }
 
+  /**
+   * Returns position of algorithm with the given display name in
+   * {@link #algorithmNames}.
+   */
+  private int algorithmIndex(String algorithmName) {
+    int index = Collections.binarySearch(algorithmNames, algorithmName);
+    if (index < 0) {
+      throw new IllegalArgumentException("Unknown algorithm " + algorithmName);
+    }
+    return index;
+  }
+
   /** Prints tree with statistics to stdout. */
   public void printTree(Node node, String prefix) {
     if (prefix.isEmpty() && node.getChildren().size() == 1) {
@@ -103,10 +140,11 @@ public class StatsCollectorListener<I extends BaseInput<? extends BaseItem>,
       System.out.print(String.format("%-30s%-15.2f",
           prefix + node.getName(),
           node.getLowerBoundSum() / node.getInputsCount()));
+      Map<String, Double> gap = node.getStats().getGap();
+      Map<String, Integer> bestCount = node.getStats().getBestCount();
       for (String id : algorithmNames) {
         System.out.print(String.format("%-8s%-7d",
-            String.format("%.2f%%", node.getStats().getGap().get(id) / node.getInputsCount()),
-            node.getStats().getBestCount().get(id)));
+            String.format("%.2f%%", gap.get(id) / node.getInputsCount()), bestCount.get(id)));
       }
       System.out.println();
       for (Node child : node.getChildren()) {
@@ -118,18 +156,19 @@ public class StatsCollectorListener<I extends BaseInput<? extends BaseItem>,
   }
 
   /**
-   * Builds sorted input identifiers tree with empty statistics and return its
-   * root.
-   *
-   * @return root of sorted input identifiers tree.
+   * Calculates lower bound for the given {@code input}. Lower bound is
+   * calculated once for inputs having the same content unless inputs are
+   * streamed.
    */
-  private Node buildSortedInputsTree(InputSuite<I> suite) {
-    Node root = new Node("root");
-    for (I input : suite.getAll()) {
-      root.addNode(input.getIdentifier(), lowerBound.calculateLowerBound(input).doubleValue());
+  private double calculateLowerBound(I input) {
+    Double bound = lowerBounds == null ? null : lowerBounds.get(input);
+    if (bound == null) {
+      bound = lowerBound.calculateLowerBound(input).doubleValue();
+      if (lowerBounds != null) {
+        lowerBounds.put(input, bound);
+      }
     }
-    root.normalize();
-    return root;
+    return bound;
   }
 
   /** Node of input identifiers tree. */
@@ -140,6 +179,9 @@ public class StatsCollectorListener<I extends BaseInput<? extends BaseItem>,
     /** List of node's children. */
     protected final List<Node> children;
 
+    /** Node's children by name. */
+    protected final Map<String, Node> childrenByName;
+
     /** Statistics corresponding to the node. */
     protected final AlgorithmStats stats;
 
@@ -163,6 +205,7 @@ public class StatsCollectorListener<I extends BaseInput<? extends BaseItem>,
     public Node(String name) {
       this.name = name;
       this.children = new ArrayList<Node>();
+      this.childrenByName = new HashMap<String, Node>();
       this.inputsCount = 0;
       this.lowerBoundSum = 0.0;
       this.bestObjective = Double.MAX_VALUE;
@@ -205,12 +248,7 @@ public class StatsCollectorListener<I extends BaseInput<? extends BaseItem>,
      * @return child with the given name of null if there is no such child
      */
     public Node getChild(String name) {
-      for (Node node : children) {
-        if (node.getName().equals(name)) {
-          return node;
-        }
-      }
-      return null;
+      return childrenByName.get(name);
     }
 
     /**
@@ -222,6 +260,7 @@ public class StatsCollectorListener<I extends BaseInput<? extends BaseItem>,
     public Node createChild(String name) {
       Node child = new Node(name);
       children.add(child);
+      childrenByName.put(name, child);
       return child;
     }
 
@@ -299,21 +338,29 @@ public class StatsCollectorListener<I extends BaseInput<? extends BaseItem>,
       return this.name.compareTo(o.name);
     }
 
-    /** Algorithm statistics. */
+    /**
+     * Algorithm statistics. Statistics are stored in primitive arrays indexed
+     * by position of algorithm in {@link StatsCollectorListener#algorithmNames}.
+     */
     public class AlgorithmStats {
+      /** Whether statistics are collected per algorithm. */
+      protected final boolean[] collected;
+
       /** Sum of objective function values per algorithm. */
-      protected Map<String, Double> objective;
+      protected final double[] objective;
 
       /** Best outputs count per algorithm. */
-      protected Map<String, Integer> bestCount;
+      protected final int[] bestCount;
 
       /** Sum of gaps per algorithm. */
-      protected Map<String, Double> gap;
+      protected final double[] gap;
 
       public AlgorithmStats() {
-        objective = new HashMap<String, Double>();
-        bestCount = new HashMap<String, Integer>();
-        gap = new HashMap<String, Double>();
+        int algorithmsCount = algorithmNames.size();
+        collected = new boolean[algorithmsCount];
+        objective = new double[algorithmsCount];
+        bestCount = new int[algorithmsCount];
+        gap = new double[algorithmsCount];
       }
 
       /**
@@ -328,13 +375,17 @@ public class StatsCollectorListener<I extends BaseInput<? extends BaseItem>,
         if (verdict.getResult() != Result.VALID_OUTPUT) {
           return;
         }
-        double objectiveValue = output.calculateObjectiveFunction().doubleValue();
-        objective.put(algorithmName, objectiveValue);
-        gap.put(algorithmName, (objectiveValue - lowerBoundSum) * 100.0 / objectiveValue);
+        int algorithm = algorithmIndex(algorithmName);
+        double objectiveValue = verdict.getObjective().doubleValue();
+        collected[algorithm] = true;
+        objective[algorithm] = objectiveValue;
+        gap[algorithm] = (objectiveValue - lowerBoundSum) * 100.0 / objectiveValue;
         bestObjective = Math.min(bestObjective, objectiveValue);
         ObjectiveComparator comparator = ObjectiveComparator.getSingleton();
-        for (String id : objective.keySet()) {
-          bestCount.put(id, comparator.compare(bestObjective, objective.get(id)) == 0 ? 1 : 0);
+        for (int i = 0; i < collected.length; i++) {
+          if (collected[i]) {
+            bestCount[i] = comparator.compare(bestObjective, objective[i]) == 0 ? 1 : 0;
+          }
         }
       }
 
@@ -343,21 +394,24 @@ public class StatsCollectorListener<I extends BaseInput<? extends BaseItem>,
        * non-leafs.
        */
       public void update(String algorithmName) {
-        objective.put(algorithmName, Double.MAX_VALUE);
-        for (String id : objective.keySet()) {
+        collected[algorithmIndex(algorithmName)] = true;
+        for (int i = 0; i < collected.length; i++) {
+          if (!collected[i]) {
+            continue;
+          }
           double objectiveSum = 0;
           int bestCountSum = 0;
           double gapSum = 0.0;
           for (Node node : children) {
-            if (node.stats.objective.containsKey(id)) {
-              objectiveSum += node.stats.objective.get(id);
-              bestCountSum += node.stats.bestCount.get(id);
-              gapSum += node.stats.gap.get(id);
+            if (node.stats.collected[i]) {
+              objectiveSum += node.stats.objective[i];
+              bestCountSum += node.stats.bestCount[i];
+              gapSum += node.stats.gap[i];
             }
           }
-          objective.put(id, objectiveSum);
-          bestCount.put(id, bestCountSum);
-          gap.put(id, gapSum);
+          objective[i] = objectiveSum;
+          bestCount[i] = bestCountSum;
+          gap[i] = gapSum;
         }
       }
 
@@ -365,21 +419,39 @@ public class StatsCollectorListener<I extends BaseInput<? extends BaseItem>,
        * @return sum of objective function values per algorithm
        */
       public Map<String, Double> getObjective() {
-        return objective;
+        Map<String, Double> result = new HashMap<String, Double>();
+        for (int i = 0; i < collected.length; i++) {
+          if (collected[i]) {
+            result.put(algorithmNames.get(i), objective[i]);
+          }
+        }
+        return result;
       }
 
       /**
        * @return best outputs count per algorithm
        */
       public Map<String, Integer> getBestCount() {
-        return bestCount;
+        Map<String, Integer> result = new HashMap<String, Integer>();
+        for (int i = 0; i < collected.length; i++) {
+          if (collected[i]) {
+            result.put(algorithmNames.get(i), bestCount[i]);
+          }
+        }
+        return result;
       }
 
       /**
        * @return sum of gaps per algorithm
        */
       public Map<String, Double> getGap() {
-        return gap;
+        Map<String, Double> result = new HashMap<String, Double>();
+        for (int i = 0; i < collected.length; i++) {
+          if (collected[i]) {
+            result.put(algorithmNames.get(i), gap[i]);
+          }
+        }
+        return result;
       }
     }
   }
@@ -0,0 +1,262 @@
+/*
+ * Copyright (C) 2010 Denis Nazarov <denis.nsc@gmail.com>.
+ *
+ * This file is part of caparf (http://code.google.com/p/caparf/).
+ *
+ * caparf is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * caparf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with caparf. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.caparf.framework.runner;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Comparator;
+import java.util.TreeSet;
+
+import com.googlecode.caparf.framework.base.Interruptible;
+
+/**
+ * Single scheduler that enforces time limits of all tasks run by
+ * {@link Runner}. Instead of blocking one supervisor thread per task, each
+ * task registers a deadline which is kept in an ordered set. The only watchdog
+ * thread sleeps until the nearest deadline, checks CPU time consumed by the
+ * task and either reschedules the deadline, interrupts the task (see
+ * {@link Interruptible}) or finally stops the thread running it.
+ * <p>
+ * Since thread can not consume more CPU time than wall-clock time, task that
+ * has {@code r} milliseconds of CPU time left can not exceed the time limit
+ * earlier than in {@code r} milliseconds of wall-clock time. So each task is
+ * checked only a few times during its run and supervision costs
+ * {@code O(log n)} per check, where {@code n} is the number of running tasks.
+ *
+ * @author denis.nsc@gmail.com (Denis Nazarov)
+ * @see Runner
+ */
+final class Watchdog implements Runnable {
+
+  /** Number of nanoseconds in one millisecond. */
+  private static final long NANOS_PER_MILLIS = Runner.NANOS_PER_MILLIS;
+
+  /** Singleton instance of watchdog. */
+  private static Watchdog singleton = null;
+
+  /** Deadlines of watched tasks ordered by wake-up time, guarded by itself. */
+  private final TreeSet<Deadline> deadlines;
+
+  /** Sequence number of the last registered deadline, guarded by deadlines. */
+  private long lastSequenceNumber;
+
+  /**
+   * Whether the watchdog thread sleeps until {@link #wakeUpNanos} or until it
+   * is notified, guarded by deadlines.
+   */
+  private boolean sleepsForever;
+
+  /** Wall-clock time the watchdog thread will wake up, guarded by deadlines. */
+  private long wakeUpNanos;
+
+  private Watchdog() {
+    deadlines = new TreeSet<Deadline>(new Comparator<Deadline>() {
+      @Override
+      public int compare(Deadline o1, Deadline o2) {
+        if (o1.wakeUpNanos != o2.wakeUpNanos) {
+          return o1.wakeUpNanos - o2.wakeUpNanos < 0 ? -1 : 1;
+        }
+        return o1.sequenceNumber < o2.sequenceNumber ? -1 :
+            (o1.sequenceNumber > o2.sequenceNumber ? 1 : 0);
+      }
+    });
+    lastSequenceNumber = 0;
+    sleepsForever = true;
+  }
+
+  /**
+   * @return singleton instance of {@code Watchdog}, its thread is started on
+   *         the first call
+   */
+  public static synchronized Watchdog getSingleton() {
+    if (singleton == null) {
+      singleton = new Watchdog();
+      Thread thread = new Thread(singleton, "caparf-watchdog");
+      thread.setDaemon(true);
+      thread.start();
+    }
+    return singleton;
+  }
+
+  /**
+   * Starts watching task that has just been given to {@code thread}.
+   *
+   * @param thread thread running the task
+   * @param task task to watch
+   * @param listener object to notify on interruption, may be non-interruptible
+   * @param startCpuTime CPU time of {@code thread} in nanoseconds before the
+   *          task was started
+   * @param timeLimit time limit in milliseconds, must be positive
+   * @return registered deadline which should be passed to {@link #cancel}
+   *         once the task is finished
+   */
+  public Deadline watch(Thread thread, StoppableTask task, Object listener, long startCpuTime,
+      long timeLimit) {
+    Deadline deadline = new Deadline(thread, task, listener, startCpuTime, timeLimit);
+    long delay = timeLimit >= Runner.EXTRA_TIME_LIMIT ?
+        (long) (timeLimit * Runner.CLOCK_ERROR) : 0;
+    schedule(deadline, System.nanoTime() + delay * NANOS_PER_MILLIS);
+    return deadline;
+  }
+
+  /**
+   * Stops watching task corresponding to the given {@code deadline}.
+   *
+   * @param deadline deadline returned by {@link #watch}
+   */
+  public void cancel(Deadline deadline) {
+    synchronized (deadlines) {
+      deadlines.remove(deadline);
+    }
+  }
+
+  /** (Re)schedules the given {@code deadline} to the given wake-up time. */
+  private void schedule(Deadline deadline, long newWakeUpNanos) {
+    synchronized (deadlines) {
+      deadlines.remove(deadline);
+      deadline.wakeUpNanos = newWakeUpNanos;
+      deadline.sequenceNumber = ++lastSequenceNumber;
+      deadlines.add(deadline);
+      // Wake up the watchdog thread only if it would oversleep the deadline
+      if (sleepsForever || this.wakeUpNanos - newWakeUpNanos > 0) {
+        deadlines.notifyAll();
+      }
+    }
+  }
+
+  @Override
+  public void run() {
+    while (true) {
+      Deadline expired;
+      synchronized (deadlines) {
+        while (true) {
+          if (deadlines.isEmpty()) {
+            sleepsForever = true;
+            waitForDeadlines(0);
+            continue;
+          }
+          long delay = deadlines.first().wakeUpNanos - System.nanoTime();
+          if (delay > 0) {
+            sleepsForever = false;
+            wakeUpNanos = deadlines.first().wakeUpNanos;
+            waitForDeadlines(Math.max(1, delay / NANOS_PER_MILLIS));
+            continue;
+          }
+          expired = deadlines.pollFirst();
+          break;
+        }
+      }
+      try {
+        check(expired);
+      } catch (RuntimeException e) {
+        // Misbehaving interruptible listener must not kill the watchdog
+        System.err.println("ERROR: Watchdog failed to check task");
+        e.printStackTrace();
+      }
+    }
+  }
+
+  /** Waits for new deadlines at most {@code millis} milliseconds. */
+  private void waitForDeadlines(long millis) {
+    try {
+      deadlines.wait(millis);
+    } catch (InterruptedException e) {
+    }
+  }
+
+  /** Checks task which deadline has expired. */
+  @SuppressWarnings("deprecation")  // for Thread.stop()
+  private void check(Deadline deadline) {
+    if (deadline.task.isDone()) {
+      return;
+    }
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    long timeElapsed = (threadMXBean.getThreadCpuTime(deadline.thread.getId()) -
+        deadline.startCpuTime) / NANOS_PER_MILLIS;
+    if (!deadline.interrupted) {
+      long limit = deadline.timeLimit - timeElapsed;
+      if (limit >= Runner.EXTRA_TIME_LIMIT) {
+        // Task can consume a little bit more than limit till the next check
+        limit = (long) (limit * Runner.CLOCK_ERROR);
+        schedule(deadline, System.nanoTime() + limit * NANOS_PER_MILLIS);
+        return;
+      }
+      // Notify (if possible) listener that time is about to exceed the limit
+      // and give task extra time to finish its work
+      deadline.interrupted = true;
+      schedule(deadline, System.nanoTime() + Runner.EXTRA_TIME_LIMIT * NANOS_PER_MILLIS);
+      if (deadline.listener instanceof Interruptible) {
+        ((Interruptible) deadline.listener).interrupt();
+      }
+      return;
+    }
+    // Stop thread if it is still running the task after time limit plus
+    // epsilon. Thread.stop() is deprecated since it can be unsafe to stop
+    // thread this way. However, it is the only possible way to terminate the
+    // thread in our case. Moreover, it is more or less safe to stop thread with
+    // algorithm (or lower bound) since it does not lock any resources needed
+    // for CAPARF.
+    if (deadline.task.abandon(timeElapsed)) {
+      deadline.thread.stop();
+    }
+  }
+
+  /** Task that can be watched by {@code Watchdog}. */
+  interface StoppableTask {
+    /**
+     * @return whether the task has finished
+     */
+    boolean isDone();
+
+    /**
+     * Marks unfinished task as abandoned, so that thread running it can be
+     * stopped safely.
+     *
+     * @param timeElapsed CPU time consumed by task in milliseconds
+     * @return {@code true} if task was not finished and has been abandoned
+     */
+    boolean abandon(long timeElapsed);
+  }
+
+  /** Deadline of single watched task. */
+  static final class Deadline {
+    private final Thread thread;
+    private final StoppableTask task;
+    private final Object listener;
+    private final long startCpuTime;
+    private final long timeLimit;
+    /** Whether the listener has been already interrupted. */
+    private boolean interrupted;
+    /** Wall-clock time of the next check, guarded by deadlines set. */
+    private long wakeUpNanos;
+    /** Tie-breaker for deadlines with equal wake-up time. */
+    private long sequenceNumber;
+
+    private Deadline(Thread thread, StoppableTask task, Object listener, long startCpuTime,
+        long timeLimit) {
+      this.thread = thread;
+      this.task = task;
+      this.listener = listener;
+      this.startCpuTime = startCpuTime;
+      this.timeLimit = timeLimit;
+      this.interrupted = false;
+    }
+  }
+}
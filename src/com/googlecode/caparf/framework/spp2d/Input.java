@@ -23,13 +23,14 @@ import java.util.List;
 
 import com.googlecode.caparf.framework.base.BaseInput;
 import com.googlecode.caparf.framework.items.Rectangle;
+import com.googlecode.caparf.framework.items.RectangleInput;
 
 /**
  * Input for 2 Dimensional Strip Packing Problem.
  *
  * @author denis.nsc@gmail.com (Denis Nazarov)
  */
-public class Input extends BaseInput<Rectangle> {
+public class Input extends RectangleInput {
 
   /** Width of strip. */
   private final int stripWidth;
@@ -66,4 +67,14 @@ public class Input extends BaseInput<Rectangle> {
   public int getStripWidth() {
     return stripWidth;
   }
+
+  @Override
+  protected long calculateContentHash() {
+    return 31 * super.calculateContentHash() + stripWidth;
+  }
+
+  @Override
+  public boolean contentEquals(BaseInput<?> other) {
+    return super.contentEquals(other) && stripWidth == ((Input) other).stripWidth;
+  }
 }
@@ -22,8 +22,8 @@ package com.googlecode.caparf.framework.spp2d;
 import java.util.List;
 
 import com.googlecode.caparf.framework.base.BaseOutput;
-import com.googlecode.caparf.framework.items.Rectangle;
 import com.googlecode.caparf.framework.items.RectanglePlacement;
+import com.googlecode.caparf.framework.items.RectanglePlacementList;
 
 /**
  * Output for 2 Dimensional Strip Packing Problem.
@@ -35,6 +35,33 @@ public class Output extends BaseOutput<RectanglePlacement> {
   /** Corresponding input. */
   private Input input;
 
+  /** Cached strip height, it is valid only if {@link #cachedVersion} is valid. */
+  private int stripHeight;
+
+  /**
+   * Version of placements list for which {@link #stripHeight} is valid or
+   * {@code -1} if strip height is not cached.
+   */
+  private long cachedVersion = -1;
+
+  /**
+   * Constructs output for 2 Dimensional Strip Packing Problem with all
+   * rectangle items placed at the origin. Algorithms can build the output by
+   * {@link #setPlacement(int, int, int)}, so that strip height is maintained
+   * incrementally.
+   *
+   * @param input corresponding input for 2 Dimensional Strip Packing Problem
+   */
+  public Output(Input input) {
+    super(new RectanglePlacementList(input.getItemsCount()), false);
+    this.input = input;
+    int[] heights = input.getRectangles().getHeights();
+    for (int i = 0; i < heights.length; i++) {
+      stripHeight = Math.max(stripHeight, heights[i]);
+    }
+    cachedVersion = getPlacementList().getVersion();
+  }
+
   /**
    * Constructs output for 2 Dimensional Strip Packing Problem. Placements is the
    * ordered list of bottom-left points of corresponding rectangle items.
@@ -43,7 +70,7 @@ public class Output extends BaseOutput<RectanglePlacement> {
    * @param placements rectangle item placements
    */
   public Output(Input input, List<RectanglePlacement> placements) {
-    super(placements);
+    super(new RectanglePlacementList(placements), false);
     this.input = input;
   }
 
@@ -55,30 +82,85 @@ public class Output extends BaseOutput<RectanglePlacement> {
    * @param placements rectangle item placements
    */
   public Output(Input input, RectanglePlacement[] placements) {
-    super(placements);
+    super(new RectanglePlacementList(placements), false);
     this.input = input;
   }
 
   @Override
   public Number calculateObjectiveFunction() {
-    int stripHeight = 0;
-    List<Rectangle> rectangles = input.getItems();
-    for (int i = 0; i < getPlacementsCount(); i++) {
-      stripHeight = Math.max(stripHeight, placements.get(i).getY() +
-          rectangles.get(i).getHeight());
+    return (int) calculateObjectiveFunctionAsLong();
+  }
+
+  @Override
+  public double calculateObjectiveFunctionAsDouble() {
+    return calculateObjectiveFunctionAsLong();
+  }
+
+  /**
+   * Returns strip height. It is calculated once and cached until placements
+   * are modified or output is transformed.
+   */
+  @Override
+  public long calculateObjectiveFunctionAsLong() {
+    RectanglePlacementList placements = getPlacementList();
+    if (cachedVersion != placements.getVersion()) {
+      int[] heights = input.getRectangles().getHeights();
+      stripHeight = 0;
+      for (int i = 0; i < placements.size(); i++) {
+        stripHeight = Math.max(stripHeight, placements.getY(i) + heights[i]);
+      }
+      cachedVersion = placements.getVersion();
     }
     return stripHeight;
   }
 
+  /**
+   * Places {@code i}-th rectangle item at the given point. Unlike modification
+   * of {@link #getPlacementList()} it updates cached strip height instead of
+   * invalidating it, unless the highest rectangle item is moved down.
+   *
+   * @param i index of rectangle item
+   * @param x {@code x}-coordinate of rectangle lower-left point
+   * @param y {@code y}-coordinate of rectangle lower-left point
+   */
+  public void setPlacement(int i, int x, int y) {
+    RectanglePlacementList placements = getPlacementList();
+    boolean cached = cachedVersion == placements.getVersion();
+    int height = input.getRectangles().getHeights()[i];
+    int oldTop = placements.getY(i) + height;
+    int newTop = y + height;
+    placements.set(i, x, y);
+    if (cached && (newTop >= stripHeight || oldTop < stripHeight)) {
+      stripHeight = Math.max(stripHeight, newTop);
+      cachedVersion = placements.getVersion();
+    }
+  }
+
+  /**
+   * Returns item placements of this output. Unlike {@link #getPlacements()} it
+   * gives access to coordinates without creating placement objects.
+   *
+   * @return rectangle item placements
+   */
+  public RectanglePlacementList getPlacementList() {
+    return (RectanglePlacementList) placementsList();
+  }
+
   @Override
-  public void transform(List<Integer> transformation) {
-    super.transform(transformation);
-    input.transform(transformation);
+  protected List<RectanglePlacement> transformPlacements(List<RectanglePlacement> placements,
+      int[] transformation) {
+    return ((RectanglePlacementList) placements).transform(transformation);
+  }
+
+  @Override
+  protected List<RectanglePlacement> copyPlacements(List<RectanglePlacement> placements) {
+    return ((RectanglePlacementList) placements).copy();
   }
 
   @Override
   public void transform(int[] transformation) {
     super.transform(transformation);
     input.transform(transformation);
+    cachedVersion = -1;
   }
 }
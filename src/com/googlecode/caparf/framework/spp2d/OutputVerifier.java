@@ -19,22 +19,24 @@
 
 package com.googlecode.caparf.framework.spp2d;
 
-import java.util.List;
-
-import com.googlecode.caparf.framework.base.BaseOutputVerifier;
+import com.googlecode.caparf.framework.base.BaseIncrementalOutputVerifier;
 import com.googlecode.caparf.framework.base.Verdict;
 import com.googlecode.caparf.framework.base.Verdict.Result;
-import com.googlecode.caparf.framework.items.Rectangle;
-import com.googlecode.caparf.framework.items.RectanglePlacement;
+import com.googlecode.caparf.framework.items.RectanglePlacementList;
+import com.googlecode.caparf.framework.items.RectangleSet;
+import com.googlecode.caparf.framework.util.IntersectionUtil;
+import com.googlecode.caparf.framework.util.RectangleIndex;
 
 /**
- * Verifier of output for 2 Dimensional Strip Packing Problem.
+ * Verifier of output for 2 Dimensional Strip Packing Problem. Intersection of
+ * rectangle items is checked by sweep line in {@code O(N log N)} time (look at
+ * {@link IntersectionUtil}).
  *
  * @param <O> algorithm output
  *
  * @author denis.nsc@gmail.com (Denis Nazarov)
  */
-public class OutputVerifier implements BaseOutputVerifier<Input, Output> {
+public class OutputVerifier implements BaseIncrementalOutputVerifier<Input, Output> {
 
   @Override
   public Verdict verify(Input input, Output output) {
@@ -56,42 +58,31 @@ public class OutputVerifier implements BaseOutputVerifier<Input, Output> {
     }
 
     // Verifies that each rectangle item fits into the strip
-    List<Rectangle> rectangles = input.getItems();
-    List<RectanglePlacement> placements = output.getPlacements();
+    RectangleSet rectangles = input.getRectangles();
+    RectanglePlacementList placements = output.getPlacementList();
+    int[] x = new int[itemsCount];
+    int[] y = new int[itemsCount];
+    int[] widths = rectangles.getWidths();
+    int[] heights = rectangles.getHeights();
     for (int i = 0; i < itemsCount; i++) {
-      Rectangle rect = rectangles.get(i);
-      RectanglePlacement placement = placements.get(i);
-      if (placement.getX() < 0 || placement.getX() + rect.getWidth() > input.getStripWidth() ||
-          placement.getY() < 0) {
+      if (placements.getX(i) < 0 || placements.getX(i) + widths[i] > input.getStripWidth() ||
+          placements.getY(i) < 0) {
         verdict.setResult(Result.INVALID_OUTPUT);
         verdict.setComment("Rectangle item #" + i + " does not fit into the strip");
         return verdict;
       }
+      x[i] = placements.getX(i);
+      y[i] = placements.getY(i);
     }
 
     // Verifies that rectangle items do not intersect
-    for (int i = 0; i < itemsCount; i++) {
-      int xli = placements.get(i).getX();
-      int xri = xli + rectangles.get(i).getWidth();
-      int yli = placements.get(i).getY();
-      int yri = yli + rectangles.get(i).getHeight();
-      for (int j = i + 1; j < itemsCount; j++) {
-        int xlj = placements.get(j).getX();
-        int xrj = xlj + rectangles.get(j).getWidth();
-        int ylj = placements.get(j).getY();
-        int yrj = ylj + rectangles.get(j).getHeight();
-
-        int xl = Math.max(xli, xlj);
-        int xr = Math.max(Math.min(xri, xrj), xl);
-        int yl = Math.max(yli, ylj);
-        int yr = Math.max(Math.min(yri, yrj), yl);
-
-        if ((xr - xl) * (yr - yl) > 0) {
-          verdict.setResult(Result.INVALID_OUTPUT);
-          verdict.setComment("Rectangle items #" + i + " and #" + j + " intersects");
-          return verdict;
-        }
-      }
+    int[] intersection = IntersectionUtil.findIntersection(x, y, widths, heights,
+        IntersectionUtil.allItems(itemsCount), 0, itemsCount);
+    if (intersection != null) {
+      verdict.setResult(Result.INVALID_OUTPUT);
+      verdict.setComment("Rectangle items #" + intersection[0] + " and #" + intersection[1] +
+          " intersects");
+      return verdict;
     }
 
     // Output is correct
@@ -99,4 +90,104 @@ public class OutputVerifier implements BaseOutputVerifier<Input, Output> {
 
     return verdict;
   }
+
+  @Override
+  public Session<Output> startSession(Input input, Output baseline) {
+    Verdict verdict = verify(input, baseline);
+    if (verdict.getResult() != Result.VALID_OUTPUT) {
+      throw new IllegalArgumentException("Baseline output is not valid: " + verdict);
+    }
+    return new IncrementalSession(input, baseline);
+  }
+
+  /**
+   * Incremental verification session that keeps placements of the baseline in
+   * {@link RectangleIndex}.
+   */
+  private static class IncrementalSession implements Session<Output> {
+    private final Input input;
+    private final RectangleIndex index;
+
+    public IncrementalSession(Input input, Output baseline) {
+      this.input = input;
+      int itemsCount = input.getItemsCount();
+      RectangleSet rectangles = input.getRectangles();
+      RectanglePlacementList placements = baseline.getPlacementList();
+      int[] x = new int[itemsCount];
+      int[] y = new int[itemsCount];
+      int[] widths = rectangles.getWidths();
+      int[] heights = rectangles.getHeights();
+      for (int i = 0; i < itemsCount; i++) {
+        x[i] = placements.getX(i);
+        y[i] = placements.getY(i);
+      }
+      index = new RectangleIndex(x, y, null, widths, heights, input.getStripWidth());
+    }
+
+    @Override
+    public Verdict verify(Output output, int[] changedItems) {
+      Verdict verdict = new Verdict();
+
+      // Verifies that output is not null
+      if (output == null) {
+        verdict.setResult(Result.INVALID_OUTPUT);
+        verdict.setComment("Output is null");
+        return verdict;
+      }
+
+      // Verifies that input and output has the same number of rectangle items
+      int itemsCount = input.getItemsCount();
+      if (itemsCount != output.getPlacementsCount()) {
+        verdict.setResult(Result.INVALID_OUTPUT);
+        verdict.setComment("Input and output has different number of rectangle items");
+        return verdict;
+      }
+
+      // Verifies that each changed rectangle item fits into the strip
+      int[] changed = RectangleIndex.sortedDistinct(changedItems, itemsCount);
+      RectangleSet rectangles = input.getRectangles();
+      RectanglePlacementList placements = output.getPlacementList();
+      int[] newX = new int[changed.length];
+      int[] newY = new int[changed.length];
+      for (int c = 0; c < changed.length; c++) {
+        int k = changed[c];
+        int width = rectangles.getWidth(k);
+        if (placements.getX(k) < 0 || placements.getX(k) + width > input.getStripWidth() ||
+            placements.getY(k) < 0) {
+          verdict.setResult(Result.INVALID_OUTPUT);
+          verdict.setComment("Rectangle item #" + k + " does not fit into the strip");
+          return verdict;
+        }
+        newX[c] = placements.getX(k);
+        newY[c] = placements.getY(k);
+      }
+
+      // Verifies that changed rectangle items do not intersect other ones
+      int[] intersection = index.findIntersection(changed, newX, newY, null);
+      if (intersection != null) {
+        verdict.setResult(Result.INVALID_OUTPUT);
+        verdict.setComment("Rectangle items #" + intersection[0] + " and #" + intersection[1] +
+            " intersects");
+        return verdict;
+      }
+
+      // Output is correct
+      verdict.setResult(Result.VALID_OUTPUT);
+
+      return verdict;
+    }
+
+    @Override
+    public void setBaseline(Output output, int[] changedItems) {
+      int[] changed = RectangleIndex.sortedDistinct(changedItems, input.getItemsCount());
+      RectanglePlacementList placements = output.getPlacementList();
+      int[] newX = new int[changed.length];
+      int[] newY = new int[changed.length];
+      for (int c = 0; c < changed.length; c++) {
+        newX[c] = placements.getX(changed[c]);
+        newY[c] = placements.getY(changed[c]);
+      }
+      index.move(changed, newX, newY, null);
+    }
+  }
 }
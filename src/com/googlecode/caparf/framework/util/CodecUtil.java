@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2010 Denis Nazarov <denis.nsc@gmail.com>.
+ *
+ * This file is part of caparf (http://code.google.com/p/caparf/).
+ *
+ * caparf is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * caparf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with caparf. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.caparf.framework.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import com.googlecode.caparf.framework.items.RectangleBinPlacementList;
+import com.googlecode.caparf.framework.items.RectanglePlacementList;
+import com.googlecode.caparf.framework.items.RectangleSet;
+
+/**
+ * Utilities for binary encoding of items and item placements. Each list is
+ * written as its size followed by fixed-width fields of its elements.
+ *
+ * @author denis.nsc@gmail.com (Denis Nazarov)
+ */
+public final class CodecUtil {
+
+  private CodecUtil() {
+  }
+
+  /**
+   * Writes the given {@code rectangles} to {@code out}.
+   *
+   * @param out binary output stream
+   * @param rectangles rectangle items to write
+   * @throws IOException if an I/O error occurs
+   */
+  public static void writeRectangles(DataOutput out, RectangleSet rectangles)
+      throws IOException {
+    out.writeInt(rectangles.size());
+    for (int i = 0; i < rectangles.size(); i++) {
+      out.writeInt(rectangles.getWidth(i));
+      out.writeInt(rectangles.getHeight(i));
+    }
+  }
+
+  /**
+   * Reads rectangle items written by {@link #writeRectangles}.
+   *
+   * @param in binary input stream
+   * @return rectangle items
+   * @throws IOException if an I/O error occurs
+   */
+  public static RectangleSet readRectangles(DataInput in) throws IOException {
+    int count = in.readInt();
+    int[] widths = new int[count];
+    int[] heights = new int[count];
+    for (int i = 0; i < count; i++) {
+      widths[i] = in.readInt();
+      heights[i] = in.readInt();
+    }
+    return new RectangleSet(widths, heights);
+  }
+
+  /**
+   * Writes the given {@code placements} to {@code out}.
+   *
+   * @param out binary output stream
+   * @param placements rectangle item placements to write
+   * @throws IOException if an I/O error occurs
+   */
+  public static void writeRectanglePlacements(DataOutput out,
+      RectanglePlacementList placements) throws IOException {
+    out.writeInt(placements.size());
+    for (int i = 0; i < placements.size(); i++) {
+      out.writeInt(placements.getX(i));
+      out.writeInt(placements.getY(i));
+    }
+  }
+
+  /**
+   * Reads rectangle item placements written by
+   * {@link #writeRectanglePlacements}.
+   *
+   * @param in binary input stream
+   * @return rectangle item placements
+   * @throws IOException if an I/O error occurs
+   */
+  public static RectanglePlacementList readRectanglePlacements(DataInput in)
+      throws IOException {
+    RectanglePlacementList placements = new RectanglePlacementList(in.readInt());
+    for (int i = 0; i < placements.size(); i++) {
+      int x = in.readInt();
+      placements.set(i, x, in.readInt());
+    }
+    return placements;
+  }
+
+  /**
+   * Writes the given {@code placements} to {@code out}.
+   *
+   * @param out binary output stream
+   * @param placements rectangle item bin-placements to write
+   * @throws IOException if an I/O error occurs
+   */
+  public static void writeRectangleBinPlacements(DataOutput out,
+      RectangleBinPlacementList placements) throws IOException {
+    out.writeInt(placements.size());
+    for (int i = 0; i < placements.size(); i++) {
+      out.writeInt(placements.getX(i));
+      out.writeInt(placements.getY(i));
+      out.writeInt(placements.getBinNumber(i));
+    }
+  }
+
+  /**
+   * Reads rectangle item bin-placements written by
+   * {@link #writeRectangleBinPlacements}.
+   *
+   * @param in binary input stream
+   * @return rectangle item bin-placements
+   * @throws IOException if an I/O error occurs
+   */
+  public static RectangleBinPlacementList readRectangleBinPlacements(DataInput in)
+      throws IOException {
+    RectangleBinPlacementList placements = new RectangleBinPlacementList(in.readInt());
+    for (int i = 0; i < placements.size(); i++) {
+      int x = in.readInt();
+      int y = in.readInt();
+      placements.set(i, x, y, in.readInt());
+    }
+    return placements;
+  }
+}
@@ -19,8 +19,10 @@
 
 package com.googlecode.caparf.framework.util;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.RandomAccess;
 
 import com.googlecode.caparf.framework.base.BaseCloneable;
 
@@ -64,4 +66,67 @@ public class CollectionUtil {
     }
     return result;
   }
+
+  /**
+   * Returns unmodifiable view of {@code items} transformed according to
+   * {@code transformation}, i.e. list whose {@code i}-th element is {@code
+   * transformation[i]}-th element of {@code items}. Neither {@code items} nor
+   * {@code transformation} are copied, so they must not be modified while the
+   * view is in use.
+   *
+   * @param items original list
+   * @param transformation transformation of elements
+   * @return transformed view of {@code items}
+   */
+  public static <T> List<T> transformedView(List<T> items, int[] transformation) {
+    return new TransformedList<T>(items, transformation);
+  }
+
+  /**
+   * Composes transformation {@code first} that was applied to list of {@code
+   * size} elements with transformation {@code second} that was applied after
+   * it. {@code i}-th element of resulting transformation is equal to {@code
+   * first[second[i]]}. {@code first} may be {@code null} which stands for
+   * identity transformation, in this case copy of {@code second} is returned.
+   * Neither of given transformations is modified.
+   *
+   * @param first transformation applied first or {@code null}
+   * @param second transformation applied second
+   * @param size number of elements in the list before {@code second} was
+   *          applied
+   * @return composition of the given transformations
+   * @throws IndexOutOfBoundsException if {@code second} refers to element out
+   *           of range {@code [0, size)}
+   */
+  public static int[] composeTransformations(int[] first, int[] second, int size) {
+    int[] result = new int[second.length];
+    for (int i = 0; i < second.length; i++) {
+      if (second[i] < 0 || second[i] >= size) {
+        throw new IndexOutOfBoundsException("Index: " + second[i] + ", Size: " + size);
+      }
+      result[i] = (first == null) ? second[i] : first[second[i]];
+    }
+    return result;
+  }
+
+  /** Unmodifiable transformed view of list. */
+  private static class TransformedList<T> extends AbstractList<T> implements RandomAccess {
+    private final List<T> items;
+    private final int[] transformation;
+
+    public TransformedList(List<T> items, int[] transformation) {
+      this.items = items;
+      this.transformation = transformation;
+    }
+
+    @Override
+    public T get(int index) {
+      return items.get(transformation[index]);
+    }
+
+    @Override
+    public int size() {
+      return transformation.length;
+    }
+  }
 }
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2010 Denis Nazarov <denis.nsc@gmail.com>.
+ *
+ * This file is part of caparf (http://code.google.com/p/caparf/).
+ *
+ * caparf is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * caparf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with caparf. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.caparf.framework.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.googlecode.caparf.framework.base.BaseInput;
+import com.googlecode.caparf.framework.base.BaseItem;
+
+/**
+ * Map keyed by content of inputs rather than by their identity or identifier.
+ * Inputs are looked up by {@link BaseInput#contentHash()} and compared by
+ * {@link BaseInput#contentEquals(BaseInput)}, so that values calculated for
+ * some input (lower bounds, verdicts etc.) can be reused for every input
+ * having the same content. Inputs must not be transformed while they are keys
+ * of the map.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @param <I> input class
+ * @param <V> value class
+ *
+ * @author denis.nsc@gmail.com (Denis Nazarov)
+ */
+public class InputContentMap<I extends BaseInput<? extends BaseItem>, V> {
+
+  /** Values by content keys of inputs. */
+  private final Map<ContentKey, V> values = new HashMap<ContentKey, V>();
+
+  /**
+   * Returns value associated with input having the same content as the given
+   * {@code input}.
+   *
+   * @param input input to look up
+   * @return associated value or null if there is no one
+   */
+  public V get(I input) {
+    return values.get(new ContentKey(input));
+  }
+
+  /**
+   * Returns whether there is value associated with input having the same
+   * content as the given {@code input}.
+   *
+   * @param input input to look up
+   * @return whether there is associated value
+   */
+  public boolean containsKey(I input) {
+    return values.containsKey(new ContentKey(input));
+  }
+
+  /**
+   * Associates the given {@code value} with content of the given {@code input}.
+   *
+   * @param input input which content is the key
+   * @param value value to associate
+   * @return previous value associated with the same content or null if there
+   *         was no one
+   */
+  public V put(I input, V value) {
+    return values.put(new ContentKey(input), value);
+  }
+
+  /**
+   * @return number of distinct input contents in the map
+   */
+  public int size() {
+    return values.size();
+  }
+
+  /** Key comparing inputs by content. */
+  private static final class ContentKey {
+    private final BaseInput<?> input;
+    private final long hash;
+
+    public ContentKey(BaseInput<?> input) {
+      this.input = input;
+      this.hash = input.contentHash();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof ContentKey)) {
+        return false;
+      }
+      ContentKey other = (ContentKey) obj;
+      return hash == other.hash && input.contentEquals(other.input);
+    }
+
+    @Override
+    public int hashCode() {
+      return (int) (hash ^ (hash >>> 32));
+    }
+  }
+}
@@ -0,0 +1,380 @@
+/*
+ * Copyright (C) 2010 Denis Nazarov <denis.nsc@gmail.com>.
+ *
+ * This file is part of caparf (http://code.google.com/p/caparf/).
+ *
+ * caparf is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * caparf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with caparf. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.caparf.framework.util;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import com.googlecode.caparf.framework.base.BaseCodec;
+import com.googlecode.caparf.framework.base.BaseInput;
+import com.googlecode.caparf.framework.base.BaseItem;
+
+/**
+ * Bundle of algorithm inputs stored in compact binary form. Bundle is loaded
+ * much faster than text files since it is memory-mapped and inputs are decoded
+ * straight from the mapped buffer without parsing.
+ * <p>
+ * Bundle consists of header, index and input records. Header holds magic
+ * number {@link #MAGIC}, format version {@link #VERSION} and number of inputs.
+ * Index holds offsets of input records from the bundle start. Each record is
+ * encoded by {@link BaseCodec#writeInput} of the problem codec, so bundle
+ * doesn't depend on the input class.
+ * <p>
+ * Inputs are decoded on every {@link #get(int)} call, so that bundle of large
+ * benchmark library costs nothing until its inputs are used. This class is
+ * thread-safe.
+ *
+ * @param <I> algorithm input class
+ *
+ * @author denis.nsc@gmail.com (Denis Nazarov)
+ */
+public final class InstanceBundle<I extends BaseInput<? extends BaseItem>> {
+
+  /** Magic number of bundle, it is "CPIB" in ASCII. */
+  public static final int MAGIC = 0x43504942;
+
+  /** Version of bundle format. */
+  public static final int VERSION = 1;
+
+  /** Size of bundle header in bytes. */
+  private static final int HEADER_SIZE = 12;
+
+  /** Buffer with the whole bundle, never read directly but by duplicates. */
+  private final ByteBuffer buffer;
+
+  /** Codec decoding input records. */
+  private final BaseCodec<I, ?> codec;
+
+  /** Offsets of input records from the bundle start. */
+  private final int[] offsets;
+
+  /**
+   * Constructs bundle stored in the given {@code buffer}.
+   *
+   * @throws IOException if buffer doesn't hold bundle of supported version
+   */
+  private InstanceBundle(ByteBuffer buffer, BaseCodec<I, ?> codec) throws IOException {
+    this.buffer = buffer;
+    this.codec = codec;
+    try {
+      ByteBuffer header = buffer.duplicate();
+      if (header.getInt() != MAGIC) {
+        throw new IOException("Not an instance bundle");
+      }
+      int version = header.getInt();
+      if (version != VERSION) {
+        throw new IOException("Unsupported instance bundle version " + version);
+      }
+      int count = header.getInt();
+      if (count < 0 || count > (header.remaining() / 4)) {
+        throw new IOException("Corrupted instance bundle index");
+      }
+      offsets = new int[count];
+      header.asIntBuffer().get(offsets);
+    } catch (BufferUnderflowException e) {
+      throw new IOException("Truncated instance bundle header");
+    }
+    for (int offset : offsets) {
+      if (offset < HEADER_SIZE || offset >= buffer.limit()) {
+        throw new IOException("Corrupted instance bundle index");
+      }
+    }
+  }
+
+  /**
+   * Opens bundle stored in the given {@code file} by mapping it into memory.
+   *
+   * @param file bundle file
+   * @param codec codec of inputs stored in the bundle
+   * @return bundle of inputs
+   * @throws IOException if an I/O error occurs or file is not a bundle
+   */
+  public static <I extends BaseInput<? extends BaseItem>> InstanceBundle<I> map(File file,
+      BaseCodec<I, ?> codec) throws IOException {
+    FileInputStream in = new FileInputStream(file);
+    try {
+      FileChannel channel = in.getChannel();
+      // Mapping stays valid after the channel is closed
+      return new InstanceBundle<I>(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()),
+          codec);
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Reads bundle from the given stream into memory. Use this method for
+   * bundles that are not files, e.g. resources packed into jar.
+   *
+   * @param in stream with bundle, it is not closed
+   * @param codec codec of inputs stored in the bundle
+   * @return bundle of inputs
+   * @throws IOException if an I/O error occurs or stream has no bundle
+   */
+  public static <I extends BaseInput<? extends BaseItem>> InstanceBundle<I> read(InputStream in,
+      BaseCodec<I, ?> codec) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    byte[] chunk = new byte[8192];
+    for (int read = in.read(chunk); read != -1; read = in.read(chunk)) {
+      bytes.write(chunk, 0, read);
+    }
+    return new InstanceBundle<I>(ByteBuffer.wrap(bytes.toByteArray()), codec);
+  }
+
+  /**
+   * Opens bundle resource with the given {@code name} of the given class. Bundle
+   * is memory-mapped if resource is a file and is read into memory otherwise.
+   *
+   * @param owner class which resource is bundle
+   * @param name name of resource relative to {@code owner}
+   * @param codec codec of inputs stored in the bundle
+   * @return bundle of inputs or null if there is no such resource
+   * @throws IOException if an I/O error occurs or resource is not a bundle
+   */
+  public static <I extends BaseInput<? extends BaseItem>> InstanceBundle<I> openResource(
+      Class<?> owner, String name, BaseCodec<I, ?> codec) throws IOException {
+    URL url = owner.getResource(name);
+    if (url == null) {
+      return null;
+    }
+    if ("file".equals(url.getProtocol())) {
+      try {
+        return map(new File(url.toURI()), codec);
+      } catch (URISyntaxException e) {
+        // Fall back to reading resource stream
+      }
+    }
+    InputStream in = url.openStream();
+    try {
+      return read(in, codec);
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Writes the given {@code inputs} to the bundle {@code file}.
+   *
+   * @param file bundle file to write
+   * @param codec codec of inputs
+   * @param inputs inputs to write
+   * @throws IOException if an I/O error occurs
+   */
+  public static <I extends BaseInput<? extends BaseItem>> void write(File file,
+      BaseCodec<I, ?> codec, List<? extends I> inputs) throws IOException {
+    ByteArrayOutputStream records = new ByteArrayOutputStream();
+    DataOutputStream recordsOut = new DataOutputStream(records);
+    int[] offsets = new int[inputs.size()];
+    int recordsOffset = HEADER_SIZE + 4 * inputs.size();
+    for (int i = 0; i < inputs.size(); i++) {
+      offsets[i] = recordsOffset + recordsOut.size();
+      codec.writeInput(recordsOut, inputs.get(i));
+    }
+    recordsOut.flush();
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+        new FileOutputStream(file)));
+    try {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(inputs.size());
+      for (int offset : offsets) {
+        out.writeInt(offset);
+      }
+      records.writeTo(out);
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * @return number of inputs in the bundle
+   */
+  public int size() {
+    return offsets.length;
+  }
+
+  /**
+   * Decodes {@code index}-th input of the bundle. Each call returns new input
+   * instance.
+   *
+   * @param index index of input
+   * @return decoded input
+   * @throws IllegalStateException if input record is corrupted
+   */
+  public I get(int index) {
+    ByteBuffer record = buffer.duplicate();
+    record.position(offsets[index]);
+    try {
+      return codec.readInput(new BufferDataInput(record));
+    } catch (IOException e) {
+      throw new IllegalStateException("Corrupted record " + index + " of instance bundle", e);
+    }
+  }
+
+  /**
+   * Returns view of bundle inputs that decodes input on every access.
+   *
+   * @return list of bundle inputs
+   */
+  public List<I> asList() {
+    return new BundleList();
+  }
+
+  /**
+   * Decodes all inputs of the bundle.
+   *
+   * @return list of decoded inputs
+   */
+  public List<I> getAll() {
+    return new ArrayList<I>(asList());
+  }
+
+  /** List view of bundle inputs. */
+  private class BundleList extends AbstractList<I> implements RandomAccess {
+    @Override
+    public I get(int index) {
+      return InstanceBundle.this.get(index);
+    }
+
+    @Override
+    public int size() {
+      return InstanceBundle.this.size();
+    }
+  }
+
+  /** {@link DataInput} reading big-endian data straight from byte buffer. */
+  private static final class BufferDataInput implements DataInput {
+    private final ByteBuffer buffer;
+
+    public BufferDataInput(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    /** Checks that buffer has {@code bytes} more bytes. */
+    private void require(int bytes) throws EOFException {
+      if (buffer.remaining() < bytes) {
+        throw new EOFException();
+      }
+    }
+
+    @Override
+    public void readFully(byte[] b) throws IOException {
+      readFully(b, 0, b.length);
+    }
+
+    @Override
+    public void readFully(byte[] b, int off, int len) throws IOException {
+      require(len);
+      buffer.get(b, off, len);
+    }
+
+    @Override
+    public int skipBytes(int n) {
+      int skipped = Math.max(0, Math.min(n, buffer.remaining()));
+      buffer.position(buffer.position() + skipped);
+      return skipped;
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+      return readByte() != 0;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+      require(1);
+      return buffer.get();
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+      return readByte() & 0xff;
+    }
+
+    @Override
+    public short readShort() throws IOException {
+      require(2);
+      return buffer.getShort();
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+      return readShort() & 0xffff;
+    }
+
+    @Override
+    public char readChar() throws IOException {
+      require(2);
+      return buffer.getChar();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+      require(4);
+      return buffer.getInt();
+    }
+
+    @Override
+    public long readLong() throws IOException {
+      require(8);
+      return buffer.getLong();
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+      require(4);
+      return buffer.getFloat();
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+      require(8);
+      return buffer.getDouble();
+    }
+
+    @Override
+    public String readLine() {
+      throw new UnsupportedOperationException("Instance bundle has no text lines");
+    }
+
+    @Override
+    public String readUTF() throws IOException {
+      return DataInputStream.readUTF(this);
+    }
+  }
+}
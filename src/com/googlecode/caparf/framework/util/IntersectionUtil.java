@@ -0,0 +1,366 @@
+/*
+ * Copyright (C) 2010 Denis Nazarov <denis.nsc@gmail.com>.
+ *
+ * This file is part of caparf (http://code.google.com/p/caparf/).
+ *
+ * caparf is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * caparf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with caparf. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.caparf.framework.util;
+
+import java.util.Arrays;
+
+/**
+ * Utilities for checking that placed rectangles do not intersect.
+ * <p>
+ * Rectangles are given by arrays of coordinates of their bottom-left corners
+ * and their sizes. Rectangles intersect if their intersection has positive
+ * area, i.e. touching rectangles and rectangles of zero area never intersect.
+ * Only rectangles with indices {@code items[from..to)} are checked against each
+ * other, which allows to check subsets of rectangles (e.g. one bin) without
+ * copying. Indices in {@code items[from..to)} must be increasing.
+ * <p>
+ * All methods report the same pair as simple pairwise check does, namely the
+ * intersecting pair {@code (i, j)} that is the first in lexicographical order.
+ *
+ * @author denis.nsc@gmail.com (Denis Nazarov)
+ */
+public class IntersectionUtil {
+
+  /**
+   * Maximal number of rectangles that are checked pairwise, since pairwise
+   * check is faster than sweep line for small number of rectangles.
+   */
+  public static final int MAX_PAIRWISE_CHECK_ITEMS = 32;
+
+  private static final long INSERTION = 1L << 31;
+  private static final long INDEX_MASK = INSERTION - 1;
+
+  private IntersectionUtil() {
+  }
+
+  /**
+   * Returns array {@code 0, 1, .., count - 1}, that selects all rectangles.
+   */
+  public static int[] allItems(int count) {
+    int[] items = new int[count];
+    for (int i = 0; i < count; i++) {
+      items[i] = i;
+    }
+    return items;
+  }
+
+  /**
+   * Finds intersecting rectangles by pairwise check for small number of
+   * rectangles and by sweep line otherwise.
+   *
+   * @return indices {@code i < j} of the first intersecting pair of rectangles
+   *         or null if rectangles do not intersect
+   */
+  public static int[] findIntersection(int[] x, int[] y, int[] widths, int[] heights,
+      int[] items, int from, int to) {
+    if (to - from <= MAX_PAIRWISE_CHECK_ITEMS) {
+      return findIntersectionPairwise(x, y, widths, heights, items, from, to, to);
+    }
+    return findIntersectionBySweepLine(x, y, widths, heights, items, from, to);
+  }
+
+  /**
+   * Finds intersecting rectangles by checking every pair of rectangles. Time
+   * complexity is {@code O(N^2)}.
+   *
+   * @return indices {@code i < j} of the first intersecting pair of rectangles
+   *         or null if rectangles do not intersect
+   */
+  public static int[] findIntersectionPairwise(int[] x, int[] y, int[] widths, int[] heights,
+      int[] items, int from, int to) {
+    return findIntersectionPairwise(x, y, widths, heights, items, from, to, to);
+  }
+
+  /**
+   * Finds intersecting rectangles by sweep line moving up, that counts
+   * rectangles crossing the line whose x-intervals overlap x-interval of new
+   * rectangle (look at {@link SweepLine}). Time complexity is
+   * {@code O(N log N)} if rectangles do not intersect and
+   * {@code O(N log^2 N)} otherwise, since the first intersecting pair is found
+   * by binary search over sweeps.
+   *
+   * @return indices {@code i < j} of the first intersecting pair of rectangles
+   *         or null if rectangles do not intersect
+   */
+  public static int[] findIntersectionBySweepLine(int[] x, int[] y, int[] widths,
+      int[] heights, int[] items, int from, int to) {
+    SweepLine sweepLine = new SweepLine(x, y, widths, heights, items, from, to);
+    int p = sweepLine.sweep(to - from);
+    if (p < 0) {
+      return null;
+    }
+    return sweepLine.findFirstIntersection(p + 1);
+  }
+
+  /**
+   * Finds intersecting rectangles by painting them one by one into occupancy
+   * bitmap of the area {@code [0..areaWidth) x [0..areaHeight)}, where each row
+   * is stored in 64-bit words. All rectangles must lie inside the area. Time
+   * complexity is {@code O(areaWidth * areaHeight / 64 + sum of h * w / 64)},
+   * so this check is preferable for small areas. Once some rectangle overlaps
+   * painted ones, the first intersection is found by {@link SweepLine} in
+   * {@code O(N log^2 N)}.
+   *
+   * @return indices {@code i < j} of the first intersecting pair of rectangles
+   *         or null if rectangles do not intersect
+   */
+  public static int[] findIntersectionByBitmap(int[] x, int[] y, int[] widths, int[] heights,
+      int[] items, int from, int to, int areaWidth, int areaHeight) {
+    int wordsPerRow = (areaWidth + 63) >>> 6;
+    long[] bitmap = new long[wordsPerRow * areaHeight];
+    for (int p = from; p < to; p++) {
+      int item = items[p];
+      if (widths[item] <= 0 || heights[item] <= 0) {
+        continue;
+      }
+      int left = x[item];
+      int right = left + widths[item] - 1;
+      int firstWord = left >>> 6;
+      int lastWord = right >>> 6;
+      // Shift distances are taken modulo 64
+      long firstMask = -1L << left;
+      long lastMask = -1L >>> (63 - (right & 63));
+      if (firstWord == lastWord) {
+        firstMask &= lastMask;
+      }
+      long overlap = 0;
+      int rowStart = y[item] * wordsPerRow;
+      for (int row = 0; row < heights[item]; row++, rowStart += wordsPerRow) {
+        int word = rowStart + firstWord;
+        overlap |= bitmap[word] & firstMask;
+        bitmap[word] |= firstMask;
+        if (firstWord != lastWord) {
+          int last = rowStart + lastWord;
+          for (word++; word < last; word++) {
+            overlap |= bitmap[word];
+            bitmap[word] = -1L;
+          }
+          overlap |= bitmap[last] & lastMask;
+          bitmap[last] |= lastMask;
+        }
+      }
+      if (overlap != 0) {
+        return new SweepLine(x, y, widths, heights, items, from, to).findFirstIntersection(
+            p - from);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Finds the first intersecting pair {@code (i, j)} with {@code i} taken from
+   * {@code items[from..fromEnd)} and {@code j} from {@code items[i+1..to)}.
+   */
+  private static int[] findIntersectionPairwise(int[] x, int[] y, int[] widths, int[] heights,
+      int[] items, int from, int fromEnd, int to) {
+    for (int p = from; p < fromEnd; p++) {
+      int i = items[p];
+      if (widths[i] <= 0 || heights[i] <= 0) {
+        continue;
+      }
+      long xli = x[i];
+      long xri = xli + widths[i];
+      long yli = y[i];
+      long yri = yli + heights[i];
+      for (int q = p + 1; q < to; q++) {
+        int j = items[q];
+        long xlj = x[j];
+        long ylj = y[j];
+        if (xlj < xri && xli < xlj + widths[j] && ylj < yri && yli < ylj + heights[j] &&
+            widths[j] > 0 && heights[j] > 0) {
+          return new int[] {i, j};
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Sweep line moving up over rectangles {@code items[from..to)}. Every
+   * intersecting pair is detected when the later of two rectangles crosses the
+   * line, as at that moment the other rectangle crosses the line and their
+   * x-intervals overlap. Active x-intervals are counted by Fenwick trees of
+   * their ends, so overlapping intervals are counted in {@code O(log N)} even
+   * if they are not disjoint.
+   */
+  private static class SweepLine {
+    private final int[] x;
+    private final int[] y;
+    private final int[] widths;
+    private final int[] heights;
+    private final int[] items;
+    private final int from;
+    private final int to;
+
+    /**
+     * Events encoded as (y, type, position of rectangle in items) so that
+     * sorting puts removals before insertions at the same y.
+     */
+    private final long[] events;
+    private int eventsCount = 0;
+
+    /** Ranks of left and right sides of rectangles among all x-coordinates. */
+    private final int[] leftRanks;
+    private final int[] rightRanks;
+
+    /**
+     * Fenwick trees counting left and right sides of active rectangles, that
+     * precede given position in items ({@code first*}) or not ({@code other*}).
+     */
+    private final int[] firstLefts;
+    private final int[] firstRights;
+    private final int[] otherLefts;
+    private final int[] otherRights;
+
+    public SweepLine(int[] x, int[] y, int[] widths, int[] heights, int[] items, int from,
+        int to) {
+      this.x = x;
+      this.y = y;
+      this.widths = widths;
+      this.heights = heights;
+      this.items = items;
+      this.from = from;
+      this.to = to;
+
+      // Coordinates are treated as unsigned 32-bit values, sign bit is flipped
+      // to sort them properly as signed longs.
+      events = new long[2 * (to - from)];
+      long[] coordinates = new long[2 * (to - from)];
+      for (int p = from; p < to; p++) {
+        int item = items[p];
+        if (widths[item] <= 0 || heights[item] <= 0) {
+          continue;
+        }
+        long bottom = y[item] & 0xffffffffL;
+        long top = (bottom + heights[item]) & 0xffffffffL;
+        coordinates[eventsCount] = x[item];
+        events[eventsCount++] = ((bottom << 32) | INSERTION | (p - from)) ^ Long.MIN_VALUE;
+        coordinates[eventsCount] = (long) x[item] + widths[item];
+        events[eventsCount++] = ((top << 32) | (p - from)) ^ Long.MIN_VALUE;
+      }
+      Arrays.sort(events, 0, eventsCount);
+
+      Arrays.sort(coordinates, 0, eventsCount);
+      int coordinatesCount = 0;
+      for (int i = 0; i < eventsCount; i++) {
+        if (coordinatesCount == 0 || coordinates[coordinatesCount - 1] != coordinates[i]) {
+          coordinates[coordinatesCount++] = coordinates[i];
+        }
+      }
+      leftRanks = new int[to - from];
+      rightRanks = new int[to - from];
+      for (int p = from; p < to; p++) {
+        int item = items[p];
+        if (widths[item] > 0 && heights[item] > 0) {
+          leftRanks[p - from] = Arrays.binarySearch(coordinates, 0, coordinatesCount, x[item]);
+          rightRanks[p - from] = Arrays.binarySearch(coordinates, 0, coordinatesCount,
+              (long) x[item] + widths[item]);
+        }
+      }
+      firstLefts = new int[coordinatesCount + 1];
+      firstRights = new int[coordinatesCount + 1];
+      otherLefts = new int[coordinatesCount + 1];
+      otherRights = new int[coordinatesCount + 1];
+    }
+
+    /**
+     * Sweeps the line looking for intersecting pair of rectangles, whose first
+     * rectangle is at position less than {@code from + firstCount} in items.
+     *
+     * @return position (relative to {@code from}) of rectangle that is found
+     *         to intersect some other one, so that the first rectangle of the
+     *         pair is not after it, or -1 if there is no such pair
+     */
+    public int sweep(int firstCount) {
+      Arrays.fill(firstLefts, 0);
+      Arrays.fill(firstRights, 0);
+      Arrays.fill(otherLefts, 0);
+      Arrays.fill(otherRights, 0);
+      for (int e = 0; e < eventsCount; e++) {
+        long event = events[e] ^ Long.MIN_VALUE;
+        int p = (int) (event & INDEX_MASK);
+        boolean first = p < firstCount;
+        int[] lefts = first ? firstLefts : otherLefts;
+        int[] rights = first ? firstRights : otherRights;
+        if ((event & INSERTION) == 0) {
+          add(lefts, leftRanks[p], -1);
+          add(rights, rightRanks[p], -1);
+          continue;
+        }
+        int overlapping = countOverlapping(firstLefts, firstRights, p);
+        if (first) {
+          overlapping += countOverlapping(otherLefts, otherRights, p);
+        }
+        if (overlapping > 0) {
+          return p;
+        }
+        add(lefts, leftRanks[p], 1);
+        add(rights, rightRanks[p], 1);
+      }
+      return -1;
+    }
+
+    /**
+     * Finds the first intersecting pair of rectangles given that its first
+     * rectangle is at position less than {@code from + firstCount} in items.
+     */
+    public int[] findFirstIntersection(int firstCount) {
+      // Finds the least firstCount for which the sweep still finds a pair
+      int low = 1;
+      int high = firstCount;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        int p = sweep(middle);
+        if (p < 0) {
+          low = middle + 1;
+        } else {
+          high = Math.min(middle, p + 1);
+        }
+      }
+      int first = from + low - 1;
+      return findIntersectionPairwise(x, y, widths, heights, items, first, first + 1, to);
+    }
+
+    /**
+     * Counts active rectangles of the given Fenwick trees whose x-intervals
+     * overlap x-interval of rectangle at position {@code p}, i.e. with left
+     * side before its right side minus ones with right side not after its left
+     * side.
+     */
+    private int countOverlapping(int[] lefts, int[] rights, int p) {
+      return countBelow(lefts, rightRanks[p]) - countBelow(rights, leftRanks[p] + 1);
+    }
+
+    private static void add(int[] tree, int rank, int delta) {
+      for (int i = rank + 1; i < tree.length; i += i & -i) {
+        tree[i] += delta;
+      }
+    }
+
+    /** Returns the number of counted values with rank less than {@code rank}. */
+    private static int countBelow(int[] tree, int rank) {
+      int count = 0;
+      for (int i = rank; i > 0; i -= i & -i) {
+        count += tree[i];
+      }
+      return count;
+    }
+  }
+}
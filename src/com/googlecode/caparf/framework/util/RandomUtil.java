@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2010 Denis Nazarov <denis.nsc@gmail.com>.
+ *
+ * This file is part of caparf (http://code.google.com/p/caparf/).
+ *
+ * caparf is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * caparf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with caparf. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.caparf.framework.util;
+
+import java.util.Random;
+
+/**
+ * Utilities for reproducible random generation. {@link Random} is linear
+ * congruential generator, so its state can be advanced by any number of steps
+ * in logarithmic time. This allows to derive {@code k}-th value of seeded
+ * sequence independently of the preceding values, e.g. to generate instances of
+ * suite in parallel exactly as they are generated serially.
+ *
+ * @author denis.nsc@gmail.com (Denis Nazarov)
+ */
+public final class RandomUtil {
+
+  /** Multiplier of {@link Random} generator. */
+  private static final long MULTIPLIER = 0x5DEECE66DL;
+
+  /** Addend of {@link Random} generator. */
+  private static final long ADDEND = 0xBL;
+
+  /** Mask of 48-bit state of {@link Random} generator. */
+  private static final long MASK = (1L << 48) - 1;
+
+  private RandomUtil() {
+  }
+
+  /**
+   * Returns {@code index}-th (starting from {@code 0}) value returned by
+   * {@link Random#nextLong()} of {@code new Random(seed)} without generating
+   * preceding values. Time complexity is {@code O(log index)}.
+   *
+   * @param seed seed of random generator
+   * @param index index of value in sequence
+   * @return {@code index}-th value of {@link Random#nextLong()} sequence
+   */
+  public static long nthLong(long seed, long index) {
+    if (index < 0) {
+      throw new IllegalArgumentException("Index must be non-negative");
+    }
+    // Each nextLong() consumes two 32-bit values
+    long state = skip((seed ^ MULTIPLIER) & MASK, 2 * index);
+    state = skip(state, 1);
+    int high = (int) (state >>> 16);
+    state = skip(state, 1);
+    int low = (int) (state >>> 16);
+    return ((long) high << 32) + low;
+  }
+
+  /** Advances the given state of {@link Random} generator by {@code steps}. */
+  private static long skip(long state, long steps) {
+    // Affine transformation x -> multiplier * x + addend made by all steps
+    long multiplier = 1;
+    long addend = 0;
+    // Affine transformation made by 2^i steps
+    long stepMultiplier = MULTIPLIER;
+    long stepAddend = ADDEND;
+    while (steps > 0) {
+      if ((steps & 1) != 0) {
+        multiplier = (multiplier * stepMultiplier) & MASK;
+        addend = (addend * stepMultiplier + stepAddend) & MASK;
+      }
+      stepAddend = (stepAddend * (stepMultiplier + 1)) & MASK;
+      stepMultiplier = (stepMultiplier * stepMultiplier) & MASK;
+      steps >>>= 1;
+    }
+    return (multiplier * state + addend) & MASK;
+  }
+}
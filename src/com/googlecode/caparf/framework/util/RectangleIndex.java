@@ -0,0 +1,288 @@
+/*
+ * Copyright (C) 2010 Denis Nazarov <denis.nsc@gmail.com>.
+ *
+ * This file is part of caparf (http://code.google.com/p/caparf/).
+ *
+ * caparf is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * caparf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with caparf. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.caparf.framework.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Spatial index of placed rectangles, which allows to check whether few moved
+ * rectangles intersect other ones without checking all rectangles.
+ * <p>
+ * Rectangles are placed in layers (e.g. bins), rectangles in different layers
+ * never intersect. Each layer is divided by uniform grid into cells, every cell
+ * keeps indices of rectangles overlapping it. Cell size is equal to average
+ * size of rectangles, so moved rectangle is checked only against few
+ * rectangles that are close to it. As in {@link IntersectionUtil} rectangles
+ * of zero area never intersect. Note, that this class is not thread-safe.
+ *
+ * @author denis.nsc@gmail.com (Denis Nazarov)
+ */
+public class RectangleIndex {
+
+  private final int[] x;
+  private final int[] y;
+  private final int[] layers;
+  private final int[] widths;
+  private final int[] heights;
+
+  /** Marks rectangles that are being moved. */
+  private final boolean[] moving;
+
+  private final int cellWidth;
+  private final int cellHeight;
+
+  /**
+   * Rows of cells keyed by layer and row number. Each cell is array with the
+   * number of rectangles at index 0 followed by rectangles' indices.
+   */
+  private final Map<Long, int[][]> rows = new HashMap<Long, int[][]>();
+
+  /** Number of cells in row. */
+  private final int columns;
+
+  /**
+   * Constructs index of rectangles. Given arrays are owned by index from now
+   * on. All rectangles must lie in {@code [0..areaWidth)} horizontally and
+   * must have non-negative y coordinates.
+   *
+   * @param x x coordinates of rectangles
+   * @param y y coordinates of rectangles
+   * @param layers layers of rectangles or null if all rectangles are in the
+   *          same layer
+   * @param widths widths of rectangles
+   * @param heights heights of rectangles
+   * @param areaWidth width of the area rectangles are placed in
+   */
+  public RectangleIndex(int[] x, int[] y, int[] layers, int[] widths, int[] heights,
+      int areaWidth) {
+    this.x = x;
+    this.y = y;
+    this.layers = layers == null ? new int[x.length] : layers;
+    this.widths = widths;
+    this.heights = heights;
+    this.moving = new boolean[x.length];
+
+    long widthSum = 0, heightSum = 0;
+    int count = 0;
+    for (int i = 0; i < x.length; i++) {
+      if (widths[i] > 0 && heights[i] > 0) {
+        widthSum += widths[i];
+        heightSum += heights[i];
+        count++;
+      }
+    }
+    cellWidth = count == 0 ? 1 : (int) Math.max(1, widthSum / count);
+    cellHeight = count == 0 ? 1 : (int) Math.max(1, heightSum / count);
+    columns = Math.max(1, (int) (((long) areaWidth + cellWidth - 1) / cellWidth));
+
+    for (int i = 0; i < x.length; i++) {
+      addToCells(i);
+    }
+  }
+
+  /**
+   * Finds intersecting rectangles assuming that only rectangles
+   * {@code changedItems} are moved to the given positions. Rectangles that are
+   * not moved must not intersect each other.
+   *
+   * @param changedItems distinct indices of moved rectangles
+   * @param newX new x coordinates of moved rectangles
+   * @param newY new y coordinates of moved rectangles
+   * @param newLayers new layers of moved rectangles or null if all rectangles
+   *          are in the same layer
+   * @return indices {@code i < j} of the first intersecting pair of rectangles
+   *         in lexicographical order or null if rectangles do not intersect
+   */
+  public int[] findIntersection(int[] changedItems, int[] newX, int[] newY, int[] newLayers) {
+    for (int k : changedItems) {
+      moving[k] = true;
+    }
+    try {
+      return findIntersectionOfMoving(changedItems, newX, newY, newLayers);
+    } finally {
+      for (int k : changedItems) {
+        moving[k] = false;
+      }
+    }
+  }
+
+  private int[] findIntersectionOfMoving(int[] changedItems, int[] newX, int[] newY,
+      int[] newLayers) {
+    int[] first = null;
+    for (int c = 0; c < changedItems.length; c++) {
+      int k = changedItems[c];
+      int layer = newLayers == null ? 0 : newLayers[c];
+      if (widths[k] <= 0 || heights[k] <= 0) {
+        continue;
+      }
+      // Moved rectangle against not moved ones
+      int firstColumn = newX[c] / cellWidth;
+      int lastColumn = (int) (((long) newX[c] + widths[k] - 1) / cellWidth);
+      int firstRow = newY[c] / cellHeight;
+      int lastRow = (int) (((long) newY[c] + heights[k] - 1) / cellHeight);
+      for (int row = firstRow; row <= lastRow; row++) {
+        int[][] cells = rows.get(rowKey(layer, row));
+        if (cells == null) {
+          continue;
+        }
+        for (int column = firstColumn; column <= lastColumn && column < columns; column++) {
+          int[] cell = cells[column];
+          if (cell == null) {
+            continue;
+          }
+          for (int p = 1; p <= cell[0]; p++) {
+            int j = cell[p];
+            if (!moving[j] && layers[j] == layer &&
+                intersect(newX[c], newY[c], widths[k], heights[k], x[j], y[j], widths[j],
+                    heights[j])) {
+              first = firstOf(first, k, j);
+            }
+          }
+        }
+      }
+      // Moved rectangle against other moved ones
+      for (int d = c + 1; d < changedItems.length; d++) {
+        int j = changedItems[d];
+        int otherLayer = newLayers == null ? 0 : newLayers[d];
+        if (otherLayer == layer && intersect(newX[c], newY[c], widths[k], heights[k], newX[d],
+            newY[d], widths[j], heights[j])) {
+          first = firstOf(first, k, j);
+        }
+      }
+    }
+    return first;
+  }
+
+  /**
+   * Moves rectangles {@code changedItems} to the given positions.
+   *
+   * @param changedItems distinct indices of moved rectangles
+   * @param newX new x coordinates of moved rectangles
+   * @param newY new y coordinates of moved rectangles
+   * @param newLayers new layers of moved rectangles or null if all rectangles
+   *          are in the same layer
+   */
+  public void move(int[] changedItems, int[] newX, int[] newY, int[] newLayers) {
+    for (int c = 0; c < changedItems.length; c++) {
+      int k = changedItems[c];
+      removeFromCells(k);
+      x[k] = newX[c];
+      y[k] = newY[c];
+      layers[k] = newLayers == null ? 0 : newLayers[c];
+      addToCells(k);
+    }
+  }
+
+  /**
+   * Returns sorted copy of the given {@code items} without duplicates.
+   *
+   * @param items indices of rectangles
+   * @param itemsCount number of rectangles
+   * @throws IllegalArgumentException if some index is out of range
+   */
+  public static int[] sortedDistinct(int[] items, int itemsCount) {
+    int[] result = items.clone();
+    Arrays.sort(result);
+    int count = 0;
+    for (int i = 0; i < result.length; i++) {
+      if (result[i] < 0 || result[i] >= itemsCount) {
+        throw new IllegalArgumentException("Rectangle item index " + result[i] +
+            " is out of range");
+      }
+      if (count == 0 || result[count - 1] != result[i]) {
+        result[count++] = result[i];
+      }
+    }
+    return count == result.length ? result : Arrays.copyOf(result, count);
+  }
+
+  private void addToCells(int item) {
+    if (widths[item] <= 0 || heights[item] <= 0) {
+      return;
+    }
+    int firstColumn = x[item] / cellWidth;
+    int lastColumn = (int) (((long) x[item] + widths[item] - 1) / cellWidth);
+    int firstRow = y[item] / cellHeight;
+    int lastRow = (int) (((long) y[item] + heights[item] - 1) / cellHeight);
+    for (int row = firstRow; row <= lastRow; row++) {
+      Long key = rowKey(layers[item], row);
+      int[][] cells = rows.get(key);
+      if (cells == null) {
+        cells = new int[columns][];
+        rows.put(key, cells);
+      }
+      for (int column = firstColumn; column <= lastColumn; column++) {
+        int[] cell = cells[column];
+        if (cell == null) {
+          cell = new int[4];
+        } else if (cell[0] + 1 == cell.length) {
+          cell = Arrays.copyOf(cell, 2 * cell.length);
+        }
+        cell[++cell[0]] = item;
+        cells[column] = cell;
+      }
+    }
+  }
+
+  private void removeFromCells(int item) {
+    if (widths[item] <= 0 || heights[item] <= 0) {
+      return;
+    }
+    int firstColumn = x[item] / cellWidth;
+    int lastColumn = (int) (((long) x[item] + widths[item] - 1) / cellWidth);
+    int firstRow = y[item] / cellHeight;
+    int lastRow = (int) (((long) y[item] + heights[item] - 1) / cellHeight);
+    for (int row = firstRow; row <= lastRow; row++) {
+      Long key = rowKey(layers[item], row);
+      int[][] cells = rows.get(key);
+      for (int column = firstColumn; column <= lastColumn; column++) {
+        int[] cell = cells[column];
+        for (int p = 1; p <= cell[0]; p++) {
+          if (cell[p] == item) {
+            cell[p] = cell[cell[0]--];
+            break;
+          }
+        }
+      }
+    }
+  }
+
+  private static Long rowKey(int layer, int row) {
+    return ((long) layer << 32) | (row & 0xffffffffL);
+  }
+
+  private static boolean intersect(long xi, long yi, int wi, int hi, long xj, long yj, int wj,
+      int hj) {
+    return wi > 0 && hi > 0 && wj > 0 && hj > 0 && xj < xi + wi && xi < xj + wj &&
+        yj < yi + hi && yi < yj + hj;
+  }
+
+  /** Returns the first of pair {@code a} and pair of items {@code i, j}. */
+  private static int[] firstOf(int[] a, int i, int j) {
+    int min = Math.min(i, j);
+    int max = Math.max(i, j);
+    if (a == null || min < a[0] || (min == a[0] && max < a[1])) {
+      return new int[] {min, max};
+    }
+    return a;
+  }
+}
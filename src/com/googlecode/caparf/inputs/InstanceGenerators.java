@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2010 Denis Nazarov <denis.nsc@gmail.com>.
+ *
+ * This file is part of caparf (http://code.google.com/p/caparf/).
+ *
+ * caparf is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * caparf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with caparf. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.caparf.inputs;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.googlecode.caparf.framework.base.InputSuite;
+
+/**
+ * Utilities for generation of instances.
+ *
+ * @author denis.nsc@gmail.com (Denis Nazarov)
+ */
+public final class InstanceGenerators {
+
+  /** Number of chunks of instances per thread, more chunks balance load better. */
+  private static final int CHUNKS_PER_THREAD = 4;
+
+  private InstanceGenerators() {
+  }
+
+  /**
+   * Generates {@code count} instances by {@code threads} threads. {@code k}-th
+   * instance is generated by {@code generator} with seed {@code k}, so generator
+   * must be thread-safe. Result doesn't depend on number of threads.
+   *
+   * @param generator generator of instances by index
+   * @param count number of instances to generate
+   * @param threads number of threads generating instances
+   * @return list of generated instances
+   */
+  public static <I> List<I> generate(final InputSuite.InputGenerator<? extends I> generator,
+      int count, int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("number of threads must be positive");
+    }
+    final List<I> instances = new ArrayList<I>(Collections.<I>nCopies(count, null));
+    if (threads == 1) {
+      for (int i = 0; i < count; i++) {
+        instances.set(i, generator.generateInput(i));
+      }
+      return instances;
+    }
+    ExecutorService workers = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> chunks = new ArrayList<Future<?>>();
+      int chunkSize = Math.max(1, count / (threads * CHUNKS_PER_THREAD));
+      for (int from = 0; from < count; from += chunkSize) {
+        final int start = from;
+        final int end = Math.min(count, from + chunkSize);
+        chunks.add(workers.submit(new Runnable() {
+          @Override
+          public void run() {
+            for (int i = start; i < end; i++) {
+              instances.set(i, generator.generateInput(i));
+            }
+          }
+        }));
+      }
+      for (Future<?> chunk : chunks) {
+        chunk.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Generation of instances was interrupted", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    } finally {
+      workers.shutdownNow();
+    }
+    return instances;
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2010 Denis Nazarov <denis.nsc@gmail.com>.
+ *
+ * This file is part of caparf (http://code.google.com/p/caparf/).
+ *
+ * caparf is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * caparf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with caparf. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.caparf.inputs;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import com.googlecode.caparf.framework.base.BaseCodec;
+import com.googlecode.caparf.framework.base.BaseInput;
+import com.googlecode.caparf.framework.base.BaseItem;
+import com.googlecode.caparf.framework.util.InstanceBundle;
+import com.googlecode.caparf.inputs.bpp2d.BerkeyWangGenerator;
+import com.googlecode.caparf.inputs.bpp2d.MartelloVigoGenerator;
+import com.googlecode.caparf.inputs.opp2d.ClautiauxGenerator;
+
+/**
+ * Converts text resources with reference instances of generators into
+ * {@link InstanceBundle bundles} that generators load instead of parsing text.
+ * Run it whenever text resources or bundle format are changed:
+ *
+ * <pre>
+ * java com.googlecode.caparf.inputs.ReferenceBundleConverter src/com/googlecode/caparf/inputs
+ * </pre>
+ *
+ * @author denis.nsc@gmail.com (Denis Nazarov)
+ */
+public final class ReferenceBundleConverter {
+
+  private ReferenceBundleConverter() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 1) {
+      System.err.println("Usage: ReferenceBundleConverter <inputs source directory>");
+      System.exit(1);
+    }
+    File directory = new File(args[0]);
+    write(new File(directory, "bpp2d/" + BerkeyWangGenerator.REFERENCE_BUNDLE_RESOURCE_NAME),
+        new com.googlecode.caparf.framework.bpp2d.Codec(),
+        BerkeyWangGenerator.parseReferenceInstances());
+    write(new File(directory, "bpp2d/" + MartelloVigoGenerator.REFERENCE_BUNDLE_RESOURCE_NAME),
+        new com.googlecode.caparf.framework.bpp2d.Codec(),
+        MartelloVigoGenerator.parseReferenceInstances());
+    write(new File(directory, "opp2d/" + ClautiauxGenerator.REFERENCE_BUNDLE_RESOURCE_NAME),
+        new com.googlecode.caparf.framework.opp2d.Codec(),
+        ClautiauxGenerator.parseReferenceInstances());
+  }
+
+  /** Writes the given {@code inputs} to bundle {@code file}. */
+  private static <I extends BaseInput<? extends BaseItem>> void write(File file,
+      BaseCodec<I, ?> codec, List<I> inputs) throws IOException {
+    InstanceBundle.write(file, codec, inputs);
+    System.out.println("Written " + inputs.size() + " inputs to " + file);
+  }
+}
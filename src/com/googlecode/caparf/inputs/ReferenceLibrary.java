@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2010 Denis Nazarov <denis.nsc@gmail.com>.
+ *
+ * This file is part of caparf (http://code.google.com/p/caparf/).
+ *
+ * caparf is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * caparf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with caparf. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.caparf.inputs;
+
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.googlecode.caparf.framework.base.BaseCodec;
+import com.googlecode.caparf.framework.base.BaseInput;
+import com.googlecode.caparf.framework.base.BaseItem;
+import com.googlecode.caparf.framework.util.InstanceBundle;
+
+/**
+ * Library of reference instances of generator that are split into classes of
+ * equal size. Instances are loaded lazily: bundle resource (look at
+ * {@link InstanceBundle}) is opened on the first request and only the
+ * requested class is decoded. Decoded classes are cached by soft references, so
+ * they are released under memory pressure and decoded again on the next
+ * request.
+ * <p>
+ * If there is no bundle resource then all instances are parsed from text by
+ * {@link #parseText()} and cached the same way.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @param <I> input class
+ *
+ * @author denis.nsc@gmail.com (Denis Nazarov)
+ */
+public abstract class ReferenceLibrary<I extends BaseInput<? extends BaseItem>> {
+
+  /** Class which resource is bundle. */
+  private final Class<?> owner;
+
+  /** Name of bundle resource relative to {@link #owner}. */
+  private final String bundleResourceName;
+
+  /** Codec of inputs stored in the bundle. */
+  private final BaseCodec<I, ?> codec;
+
+  /** Cached classes of instances, null elements are not loaded yet. */
+  private final List<SoftReference<List<I>>> classes;
+
+  /** Opened bundle or null if it is not opened yet or there is no bundle. */
+  private InstanceBundle<I> bundle;
+
+  /** Whether an attempt to open bundle was made. */
+  private boolean bundleOpened;
+
+  /**
+   * Constructs library of reference instances.
+   *
+   * @param owner class which resource is bundle
+   * @param bundleResourceName name of bundle resource relative to
+   *          {@code owner}
+   * @param codec codec of inputs stored in the bundle
+   * @param classesCount number of classes of instances
+   */
+  public ReferenceLibrary(Class<?> owner, String bundleResourceName, BaseCodec<I, ?> codec,
+      int classesCount) {
+    this.owner = owner;
+    this.bundleResourceName = bundleResourceName;
+    this.codec = codec;
+    this.classes = new ArrayList<SoftReference<List<I>>>(
+        Collections.<SoftReference<List<I>>>nCopies(classesCount, null));
+  }
+
+  /**
+   * Parses all reference instances ordered by class from text. It is called
+   * only if there is no bundle.
+   *
+   * @return all reference instances
+   */
+  protected abstract List<I> parseText();
+
+  /**
+   * @return number of classes of instances
+   */
+  public int getClassesCount() {
+    return classes.size();
+  }
+
+  /**
+   * Returns instances of the class with the given index loading them if they
+   * are not cached.
+   *
+   * @param classIndex index of class
+   * @return unmodifiable list of instances
+   */
+  public synchronized List<I> getInstances(int classIndex) {
+    List<I> instances = cachedClass(classIndex);
+    if (instances != null) {
+      return instances;
+    }
+    InstanceBundle<I> bundle = openBundle();
+    if (bundle != null) {
+      int classSize = bundle.size() / classes.size();
+      instances = new ArrayList<I>(
+          bundle.asList().subList(classIndex * classSize, (classIndex + 1) * classSize));
+      return cacheClass(classIndex, instances);
+    }
+    List<I> all = parseText();
+    int classSize = all.size() / classes.size();
+    for (int i = 0; i < classes.size(); i++) {
+      List<I> parsed = cacheClass(i, new ArrayList<I>(
+          all.subList(i * classSize, (i + 1) * classSize)));
+      if (i == classIndex) {
+        instances = parsed;
+      }
+    }
+    return instances;
+  }
+
+  /**
+   * Returns instances of all classes ordered by class.
+   *
+   * @return all instances
+   */
+  public List<I> getAll() {
+    List<I> result = new ArrayList<I>();
+    for (int i = 0; i < classes.size(); i++) {
+      result.addAll(getInstances(i));
+    }
+    return result;
+  }
+
+  /** Returns cached class of instances or null if it is not cached. */
+  private List<I> cachedClass(int classIndex) {
+    SoftReference<List<I>> reference = classes.get(classIndex);
+    return reference == null ? null : reference.get();
+  }
+
+  /** Caches the given class of instances and returns its unmodifiable view. */
+  private List<I> cacheClass(int classIndex, List<I> instances) {
+    List<I> result = Collections.unmodifiableList(instances);
+    classes.set(classIndex, new SoftReference<List<I>>(result));
+    return result;
+  }
+
+  /** Opens bundle once and returns it or null if there is no bundle. */
+  private InstanceBundle<I> openBundle() {
+    if (!bundleOpened) {
+      try {
+        bundle = InstanceBundle.openResource(owner, bundleResourceName, codec);
+      } catch (IOException e) {
+        throw new IllegalStateException("Can't load " + bundleResourceName, e);
+      }
+      bundleOpened = true;
+    }
+    return bundle;
+  }
+}
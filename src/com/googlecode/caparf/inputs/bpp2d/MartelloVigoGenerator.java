@@ -20,15 +20,19 @@
 package com.googlecode.caparf.inputs.bpp2d;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.Random;
 import java.util.Scanner;
 
+import com.googlecode.caparf.framework.base.InputSuite;
+import com.googlecode.caparf.framework.bpp2d.Codec;
 import com.googlecode.caparf.framework.bpp2d.Input;
 import com.googlecode.caparf.framework.items.Rectangle;
+import com.googlecode.caparf.framework.util.InstanceBundle;
+import com.googlecode.caparf.framework.util.RandomUtil;
+import com.googlecode.caparf.inputs.InstanceGenerators;
+import com.googlecode.caparf.inputs.ReferenceLibrary;
 
 /**
  * Test instances generator proposed by Martello and Vigo. For the reference
@@ -40,6 +44,12 @@ import com.googlecode.caparf.framework.items.Rectangle;
  * <p>
  * <i>Note</i>: Implementation details for classes V-VII are not clear, only
  * classes I-IV are implemented.
+ * <p>
+ * Generation is reproducible: {@code k}-th input generated with the given seed
+ * depends only on the seed and {@code k}, so inputs can be generated
+ * independently and in parallel (look at
+ * {@link #generateInstances(int, int, Type, long, int)}). This class is
+ * thread-safe.
  *
  * @author denis.nsc@gmail.com (Denis Nazarov)
  */
@@ -144,13 +154,10 @@ public class MartelloVigoGenerator {
     }
   }
 
-  /** Random generator that will be used in inputs generation. */
-  private Random random;
   /** Random generator that will be used to generate seeds. */
-  private Random seedGenerator;
+  private final Random seedGenerator;
 
   public MartelloVigoGenerator() {
-    random = new Random();
     seedGenerator = new Random();
   }
 
@@ -181,12 +188,49 @@ public class MartelloVigoGenerator {
    *         items
    */
   public List<Input> generateInstances(int count, int itemsCount, Type type, long seed) {
-    seedGenerator.setSeed(seed);
-    ArrayList<Input> instances = new ArrayList<Input>(count);
-    for (int i = 0; i < count; i++) {
-      instances.add(generateInstance(itemsCount, type, seedGenerator.nextLong()));
-    }
-    return instances;
+    return generateInstances(count, itemsCount, type, seed, 1);
+  }
+
+  /**
+   * Generates {@code code} inputs of {@code type} type with {@code itemsCount}
+   * items by {@code threads} threads. Result is identical to the result of
+   * {@link #generateInstances(int, int, Type, long)} with the same {@code seed}
+   * regardless of number of threads.
+   *
+   * @param count number of inputs to generate
+   * @param itemsCount number of items to generate (per one input)
+   * @param type type of instance to generate
+   * @param seed the initial seed
+   * @param threads number of threads generating inputs
+   * @return {@code code} inputs of {@code type} type with {@code itemsCount}
+   *         items
+   */
+  public List<Input> generateInstances(int count, int itemsCount, Type type, long seed,
+      int threads) {
+    return InstanceGenerators.generate(instanceGenerator(itemsCount, type, seed), count, threads);
+  }
+
+  /**
+   * Returns generator of inputs of {@code type} type with {@code itemsCount}
+   * items by index. Input generated for index {@code k} is identical to
+   * {@code k}-th input of {@link #generateInstances(int, int, Type, long)} with
+   * the same {@code seed}, it is generated without generating previous inputs.
+   * Returned generator is thread-safe and can be used to stream inputs (look at
+   * {@link InputSuite#addGenerated(InputSuite.InputGenerator, long, int)}).
+   *
+   * @param itemsCount number of items to generate (per one input)
+   * @param type type of instance to generate
+   * @param seed the initial seed
+   * @return generator of inputs by index
+   */
+  public InputSuite.InputGenerator<Input> instanceGenerator(final int itemsCount, final Type type,
+      final long seed) {
+    return new InputSuite.InputGenerator<Input>() {
+      @Override
+      public Input generateInput(long index) {
+        return generateInstance(itemsCount, type, RandomUtil.nthLong(seed, index));
+      }
+    };
   }
 
   /**
@@ -213,7 +257,7 @@ public class MartelloVigoGenerator {
    *         items
    */
   public Input generateInstance(int itemsCount, Type type, long seed) {
-    random.setSeed(seed);
+    Random random = new Random(seed);
     ArrayList<Rectangle> items = new ArrayList<Rectangle>(itemsCount);
     for (int i = 0; i < itemsCount; i++) {
       double x = random.nextDouble() * type.weightSum;
@@ -230,38 +274,61 @@ public class MartelloVigoGenerator {
   }
 
   /**
-   * @return reference instances corresponding to the given {@code type}
+   * Returns reference instances corresponding to the given {@code type}. Only
+   * instances of this type are loaded, they are cached until memory is needed.
+   *
+   * @return unmodifiable list of reference instances or null if there are no
+   *         reference instances of {@code type}
    */
   public static List<Input> getReferenceInstances(Type type) {
-    return REFERENCE_INSTANCES.get(type);
+    int index = REFERENCE_TYPES.indexOf(type);
+    return index == -1 ? null : REFERENCE_LIBRARY.getInstances(index);
   }
 
   /**
-   * @return all reference instances
+   * @return all reference instances ordered by type
    */
   public static List<Input> getReferenceInstances() {
-    ArrayList<Input> result = new ArrayList<Input>();
-    for (List<Input> instances : REFERENCE_INSTANCES.values()) {
-      result.addAll(instances);
-    }
-    return result;
+    return REFERENCE_LIBRARY.getAll();
   }
 
-  private static final Map<Type, List<Input>> REFERENCE_INSTANCES;
+  /** Types of reference instances in the order they are stored in resources. */
+  private static final List<Type> REFERENCE_TYPES =
+      Arrays.asList(CLASS_I, CLASS_II, CLASS_III, CLASS_IV);
 
   private static final String REFERENCE_INSTANCES_RESOURCE_NAME =
       "MartelloVigoReferenceInstances.txt";
   private static final int INSTANCES_PER_TYPE = 50;
 
-  static {
-    REFERENCE_INSTANCES = new HashMap<Type, List<Input>>();
+  /**
+   * Name of resource with reference instances bundle (look at
+   * {@link InstanceBundle}).
+   */
+  public static final String REFERENCE_BUNDLE_RESOURCE_NAME =
+      "MartelloVigoReferenceInstances.bin";
+
+  /** Lazily loaded reference instances split by type. */
+  private static final ReferenceLibrary<Input> REFERENCE_LIBRARY = new ReferenceLibrary<Input>(
+      MartelloVigoGenerator.class, REFERENCE_BUNDLE_RESOURCE_NAME, new Codec(),
+      REFERENCE_TYPES.size()) {
+    @Override
+    protected List<Input> parseText() {
+      return parseReferenceInstances();
+    }
+  };
+
+  /**
+   * Parses reference instances of all types from the text resource. It is much
+   * slower than loading of the bundle, so it is used only to build the bundle
+   * (look at {@link com.googlecode.caparf.inputs.ReferenceBundleConverter}).
+   *
+   * @return reference instances ordered by type
+   */
+  public static List<Input> parseReferenceInstances() {
     Scanner scanner = new Scanner(BerkeyWangGenerator.class.getResourceAsStream(
         REFERENCE_INSTANCES_RESOURCE_NAME));
-    List<Type> allTypes = new ArrayList<Type>();
-    Collections.addAll(allTypes, CLASS_I, CLASS_II, CLASS_III, CLASS_IV);
-    for (int j = 0; j < allTypes.size(); j++) {
-      Type type = allTypes.get(j);
-      ArrayList<Input> instances = new ArrayList<Input>(INSTANCES_PER_TYPE);
+    ArrayList<Input> instances = new ArrayList<Input>(REFERENCE_TYPES.size() * INSTANCES_PER_TYPE);
+    for (int j = 0; j < REFERENCE_TYPES.size(); j++) {
       for (int id = 0; id < INSTANCES_PER_TYPE; id++) {
         int width = scanner.nextInt();
         int itemsCount = scanner.nextInt();
@@ -273,7 +340,7 @@ public class MartelloVigoGenerator {
             (j + 1) + "." + String.format("%02d", id + 1));
         instances.add(instance);
       }
-      REFERENCE_INSTANCES.put(type, instances);
     }
+    return instances;
   }
 }
@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) 2010 Denis Nazarov <denis.nsc@gmail.com>.
+ *
+ * This file is part of caparf (http://code.google.com/p/caparf/).
+ *
+ * caparf is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * caparf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with caparf. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.caparf.inputs.library;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Scanner of integers and tokens in text stored in byte buffer. Text is
+ * scanned byte by byte without decoding it into characters, which makes
+ * parsing of large benchmark libraries I/O-bound. Bytes are treated as
+ * ISO-8859-1 characters. Buffer is read by absolute index, its position and
+ * limit are not changed.
+ *
+ * @author denis.nsc@gmail.com (Denis Nazarov)
+ */
+final class ByteScanner {
+
+  /** Buffer with text. */
+  private final ByteBuffer buffer;
+
+  /** Name of scanned text used in error messages. */
+  private final String name;
+
+  /** Index of the current byte in {@link #buffer}. */
+  private int position;
+
+  /** Index of the byte following the last byte of text. */
+  private final int limit;
+
+  /** Number of the current line starting from {@code 1}. */
+  private int line;
+
+  /**
+   * Constructs scanner of text in the given {@code buffer} between its
+   * position and limit.
+   *
+   * @param buffer buffer with text
+   * @param name name of text used in error messages, e.g. file name
+   */
+  ByteScanner(ByteBuffer buffer, String name) {
+    this.buffer = buffer;
+    this.name = name;
+    this.position = buffer.position();
+    this.limit = buffer.limit();
+    this.line = 1;
+  }
+
+  /**
+   * Skips whitespaces and line breaks.
+   *
+   * @return whether there are more tokens
+   */
+  boolean hasNext() {
+    skipSpaces(true);
+    return position < limit;
+  }
+
+  /**
+   * Returns the next token which is delimited by whitespaces or line breaks.
+   *
+   * @throws IOException if there are no more tokens
+   */
+  String next() throws IOException {
+    if (!hasNext()) {
+      throw error("token expected");
+    }
+    StringBuilder token = new StringBuilder();
+    while (position < limit && !isSpace(buffer.get(position))) {
+      token.append((char) (buffer.get(position++) & 0xFF));
+    }
+    return token.toString();
+  }
+
+  /**
+   * Returns the next integer which may be on the following lines.
+   *
+   * @throws IOException if the next token is not an integer
+   */
+  int nextInt() throws IOException {
+    skipSpaces(true);
+    return parseInt();
+  }
+
+  /**
+   * Reads integers from the next non-blank line. The rest of line starting
+   * from the first token that is not an integer is skipped as a comment.
+   *
+   * @param values array to store integers of line into
+   * @return number of integers read or {@code -1} if there are no more lines
+   * @throws IOException if line has more than {@code values.length} integers
+   *           or integer is malformed
+   */
+  int nextLine(int[] values) throws IOException {
+    if (!hasNext()) {
+      return -1;
+    }
+    int count = 0;
+    while (position < limit && isIntegerStart()) {
+      if (count == values.length) {
+        throw error("at most " + values.length + " integers expected");
+      }
+      values[count++] = parseInt();
+      skipSpaces(false);
+    }
+    skipLine();
+    return count;
+  }
+
+  /**
+   * Reads integers from the next non-blank line like {@link #nextLine(int[])}
+   * and checks that there are at least {@code minCount} of them.
+   *
+   * @param values array to store integers of line into
+   * @param minCount minimal number of integers in line
+   * @return number of integers read
+   * @throws IOException if there are no more lines, line has less than
+   *           {@code minCount} or more than {@code values.length} integers or
+   *           integer is malformed
+   */
+  int nextLine(int[] values, int minCount) throws IOException {
+    if (!hasNext()) {
+      throw error("unexpected end of file");
+    }
+    int valuesLine = line;
+    int count = nextLine(values);
+    if (count < minCount) {
+      throw error("at least " + minCount + " integers expected", valuesLine);
+    }
+    return count;
+  }
+
+  /** Skips the rest of the current line including line break. */
+  void skipLine() {
+    while (position < limit) {
+      if (buffer.get(position++) == '\n') {
+        line++;
+        return;
+      }
+    }
+  }
+
+  /**
+   * Returns exception describing malformed text at the current position.
+   *
+   * @param message description of the problem
+   */
+  IOException error(String message) {
+    return error(message, line);
+  }
+
+  /** Returns exception describing malformed text at the given line. */
+  private IOException error(String message, int line) {
+    return new IOException(name + ":" + line + ": " + message);
+  }
+
+  /** Parses integer starting at the current position. */
+  private int parseInt() throws IOException {
+    boolean negative = false;
+    if (position < limit && (buffer.get(position) == '-' || buffer.get(position) == '+')) {
+      negative = buffer.get(position++) == '-';
+    }
+    if (position == limit || !isDigit(buffer.get(position))) {
+      throw error("integer expected");
+    }
+    long value = 0;
+    byte b;
+    while (position < limit && isDigit(b = buffer.get(position))) {
+      value = value * 10 + (b - '0');
+      if (value > Integer.MAX_VALUE + 1L) {
+        throw error("integer is too large");
+      }
+      position++;
+    }
+    if (position < limit && !isSpace(buffer.get(position))) {
+      throw error("malformed integer");
+    }
+    if (negative) {
+      value = -value;
+    }
+    if (value > Integer.MAX_VALUE) {
+      throw error("integer is too large");
+    }
+    return (int) value;
+  }
+
+  /** Returns whether integer starts at the current position. */
+  private boolean isIntegerStart() {
+    byte b = buffer.get(position);
+    if ((b == '-' || b == '+') && position + 1 < limit) {
+      b = buffer.get(position + 1);
+    }
+    return isDigit(b);
+  }
+
+  /**
+   * Skips whitespaces, line breaks are skipped only if {@code lineBreaks} is
+   * set.
+   */
+  private void skipSpaces(boolean lineBreaks) {
+    while (position < limit) {
+      byte b = buffer.get(position);
+      if (b == '\n') {
+        if (!lineBreaks) {
+          return;
+        }
+        line++;
+      } else if (!isSpace(b)) {
+        return;
+      }
+      position++;
+    }
+  }
+
+  private static boolean isDigit(byte b) {
+    return b >= '0' && b <= '9';
+  }
+
+  private static boolean isSpace(byte b) {
+    return b == ' ' || b == '\t' || b == '\r' || b == '\n' || b == '\f';
+  }
+}
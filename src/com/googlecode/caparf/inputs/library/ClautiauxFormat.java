@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2010 Denis Nazarov <denis.nsc@gmail.com>.
+ *
+ * This file is part of caparf (http://code.google.com/p/caparf/).
+ *
+ * caparf is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * caparf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with caparf. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.caparf.inputs.library;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.googlecode.caparf.framework.items.Rectangle;
+import com.googlecode.caparf.framework.opp2d.Codec;
+import com.googlecode.caparf.framework.opp2d.Input;
+
+/**
+ * Format of two dimensional orthogonal packing instances by Clautiaux (look
+ * at {@link LibraryFormat#CLAUTIAUX}).
+ *
+ * @author denis.nsc@gmail.com (Denis Nazarov)
+ */
+final class ClautiauxFormat extends LibraryFormat<Input> {
+
+  ClautiauxFormat() {
+    super("clautiaux", new Codec());
+  }
+
+  @Override
+  void parse(ByteScanner scanner, String fileName, List<Input> inputs) throws IOException {
+    while (scanner.hasNext()) {
+      String instance = scanner.next();
+      int binWidth = scanner.nextInt();
+      int binHeight = scanner.nextInt();
+      int itemsCount = scanner.nextInt();
+      if (itemsCount < 0) {
+        throw scanner.error("negative number of items");
+      }
+      Rectangle[] items = new Rectangle[itemsCount];
+      for (int i = 0; i < itemsCount; i++) {
+        items[i] = new Rectangle(scanner.nextInt(), scanner.nextInt());
+      }
+      inputs.add(new Input(items, binWidth, binHeight, "opp2d." + fileName + "." + instance));
+    }
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2010 Denis Nazarov <denis.nsc@gmail.com>.
+ *
+ * This file is part of caparf (http://code.google.com/p/caparf/).
+ *
+ * caparf is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * caparf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with caparf. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.caparf.inputs.library;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.googlecode.caparf.framework.base.BaseCodec;
+import com.googlecode.caparf.framework.base.BaseInput;
+import com.googlecode.caparf.framework.base.BaseItem;
+
+/**
+ * Text format of published benchmark library of cutting-and-packing
+ * instances. Formats parse text straight from bytes (look at
+ * {@link LibraryImporter}).
+ *
+ * @param <I> algorithm input class
+ *
+ * @author denis.nsc@gmail.com (Denis Nazarov)
+ */
+public abstract class LibraryFormat<I extends BaseInput<? extends BaseItem>> {
+
+  /**
+   * Format of two dimensional bin packing instances by Lodi, Martello and Vigo
+   * ({@code .2bp} files). File holds several instances separated by blank
+   * lines, each instance consists of lines with problem class, number of
+   * items, relative and absolute number of instance, height and width of bin
+   * and height and width of each item. Integers of each line may be followed
+   * by comment. Identifier of input is file name followed by relative number
+   * of instance.
+   */
+  public static final LibraryFormat<com.googlecode.caparf.framework.bpp2d.Input>
+      LODI_MARTELLO_VIGO = new LodiMartelloVigoFormat();
+
+  /**
+   * Format of two dimensional strip packing instances. File holds single
+   * instance which consists of lines with number of items, width of strip
+   * (optionally followed by height of optimal packing) and width and height of
+   * each item (optionally preceded by item number). Identifier of input is
+   * file name.
+   */
+  public static final LibraryFormat<com.googlecode.caparf.framework.spp2d.Input> STRIP_PACKING =
+      new StripPackingFormat();
+
+  /**
+   * Format of two dimensional orthogonal packing instances by Clautiaux. File
+   * holds several instances each of which consists of instance name, width
+   * and height of bin, number of items and width and height of each item.
+   * Identifier of input is file name followed by instance name.
+   */
+  public static final LibraryFormat<com.googlecode.caparf.framework.opp2d.Input> CLAUTIAUX =
+      new ClautiauxFormat();
+
+  /** Name of format. */
+  private final String name;
+
+  /** Codec of inputs of this format. */
+  private final BaseCodec<I, ?> codec;
+
+  LibraryFormat(String name, BaseCodec<I, ?> codec) {
+    this.name = name;
+    this.codec = codec;
+  }
+
+  /**
+   * @return name of format
+   */
+  public final String getName() {
+    return name;
+  }
+
+  /**
+   * @return codec of inputs of this format, e.g. to write them to
+   *         {@link com.googlecode.caparf.framework.util.InstanceBundle}
+   */
+  public final BaseCodec<I, ?> getCodec() {
+    return codec;
+  }
+
+  /**
+   * Returns format with the given {@code name}.
+   *
+   * @param name name of format
+   * @return format with the given name or {@code null} if there is no such
+   *         format
+   */
+  public static LibraryFormat<?> forName(String name) {
+    for (LibraryFormat<?> format : new LibraryFormat<?>[] {
+        LODI_MARTELLO_VIGO, STRIP_PACKING, CLAUTIAUX }) {
+      if (format.getName().equals(name)) {
+        return format;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Parses all instances from the given {@code scanner}.
+   *
+   * @param scanner scanner of file text
+   * @param fileName name of file without extension used in input identifiers
+   * @param inputs list to add parsed inputs to
+   * @throws IOException if text is malformed
+   */
+  abstract void parse(ByteScanner scanner, String fileName, List<I> inputs) throws IOException;
+
+  @Override
+  public String toString() {
+    return name;
+  }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2010 Denis Nazarov <denis.nsc@gmail.com>.
+ *
+ * This file is part of caparf (http://code.google.com/p/caparf/).
+ *
+ * caparf is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * caparf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with caparf. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.caparf.inputs.library;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.googlecode.caparf.framework.base.BaseInput;
+import com.googlecode.caparf.framework.base.BaseItem;
+import com.googlecode.caparf.framework.util.InstanceBundle;
+
+/**
+ * Imports instances of published benchmark libraries from their text files
+ * (look at {@link LibraryFormat} for supported formats). Files are read by
+ * NIO and parsed byte by byte without decoding text into characters, so that
+ * import of thousands of files is I/O-bound rather than parser-bound. Large
+ * files are memory-mapped.
+ * <p>
+ * Imported library can be converted into {@link InstanceBundle} which loads
+ * much faster than text files:
+ *
+ * <pre>
+ * java com.googlecode.caparf.inputs.library.LibraryImporter 2bp lodi 2bp lodi.bin
+ * </pre>
+ *
+ * @author denis.nsc@gmail.com (Denis Nazarov)
+ */
+public final class LibraryImporter {
+
+  /** Files of this size and larger are memory-mapped instead of being read. */
+  private static final int MAPPING_THRESHOLD = 1 << 16;
+
+  private LibraryImporter() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 4) {
+      System.err.println(
+          "Usage: LibraryImporter <format> <directory> <files extension> <bundle file>");
+      System.exit(1);
+    }
+    LibraryFormat<?> format = LibraryFormat.forName(args[0]);
+    if (format == null) {
+      System.err.println("Unknown format " + args[0] + ", supported formats are "
+          + Arrays.asList(LibraryFormat.LODI_MARTELLO_VIGO, LibraryFormat.STRIP_PACKING,
+              LibraryFormat.CLAUTIAUX));
+      System.exit(1);
+    }
+    long start = System.currentTimeMillis();
+    int count = importToBundle(new File(args[1]), args[2], format, new File(args[3]));
+    System.out.println("Imported " + count + " inputs to " + args[3] + " in "
+        + (System.currentTimeMillis() - start) + " ms");
+  }
+
+  /** Imports all files of library and writes inputs to bundle {@code file}. */
+  private static <I extends BaseInput<? extends BaseItem>> int importToBundle(File directory,
+      String extension, LibraryFormat<I> format, File file) throws IOException {
+    List<I> inputs = importDirectory(directory, extension, format,
+        Runtime.getRuntime().availableProcessors());
+    InstanceBundle.write(file, format.getCodec(), inputs);
+    return inputs.size();
+  }
+
+  /**
+   * Imports all instances from the given {@code file}.
+   *
+   * @param file file of library
+   * @param format format of file
+   * @return list of inputs in the order of file
+   * @throws IOException if an I/O error occurs or file is malformed
+   */
+  public static <I extends BaseInput<? extends BaseItem>> List<I> importFile(File file,
+      LibraryFormat<I> format) throws IOException {
+    String fileName = file.getName();
+    int extension = fileName.lastIndexOf('.');
+    if (extension > 0) {
+      fileName = fileName.substring(0, extension);
+    }
+    List<I> inputs = new ArrayList<I>();
+    format.parse(new ByteScanner(readFile(file), file.getPath()), fileName, inputs);
+    return inputs;
+  }
+
+  /**
+   * Imports all instances from the given {@code files} by {@code threads}
+   * threads. Result doesn't depend on number of threads.
+   *
+   * @param files files of library
+   * @param format format of files
+   * @param threads number of threads importing files
+   * @return list of inputs in the order of files
+   * @throws IOException if an I/O error occurs or some file is malformed
+   */
+  public static <I extends BaseInput<? extends BaseItem>> List<I> importFiles(List<File> files,
+      final LibraryFormat<I> format, int threads) throws IOException {
+    if (threads < 1) {
+      throw new IllegalArgumentException("number of threads must be positive");
+    }
+    List<I> inputs = new ArrayList<I>();
+    if (threads == 1) {
+      for (File file : files) {
+        inputs.addAll(importFile(file, format));
+      }
+      return inputs;
+    }
+    ExecutorService workers = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<List<I>>> imports = new ArrayList<Future<List<I>>>(files.size());
+      for (final File file : files) {
+        imports.add(workers.submit(new Callable<List<I>>() {
+          @Override
+          public List<I> call() throws IOException {
+            return importFile(file, format);
+          }
+        }));
+      }
+      for (Future<List<I>> fileInputs : imports) {
+        inputs.addAll(fileInputs.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Import of instances was interrupted", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    } finally {
+      workers.shutdownNow();
+    }
+    return inputs;
+  }
+
+  /**
+   * Imports all instances from files of the given {@code directory} having
+   * the given {@code extension} by {@code threads} threads. Files are imported
+   * in the order of their names.
+   *
+   * @param directory directory of library
+   * @param extension extension of library files without dot, e.g.
+   *          {@code "2bp"}
+   * @param format format of files
+   * @param threads number of threads importing files
+   * @return list of inputs
+   * @throws IOException if an I/O error occurs or some file is malformed
+   */
+  public static <I extends BaseInput<? extends BaseItem>> List<I> importDirectory(
+      File directory, final String extension, LibraryFormat<I> format, int threads)
+      throws IOException {
+    File[] files = directory.listFiles(new FileFilter() {
+      @Override
+      public boolean accept(File file) {
+        return file.isFile() && file.getName().endsWith("." + extension);
+      }
+    });
+    if (files == null) {
+      throw new IOException("Can't list files of " + directory);
+    }
+    Arrays.sort(files);
+    return importFiles(Arrays.asList(files), format, threads);
+  }
+
+  /** Returns buffer with the whole content of {@code file}. */
+  private static ByteBuffer readFile(File file) throws IOException {
+    FileInputStream in = new FileInputStream(file);
+    try {
+      FileChannel channel = in.getChannel();
+      long size = channel.size();
+      if (size >= MAPPING_THRESHOLD) {
+        // Mapping stays valid after the channel is closed
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      }
+      ByteBuffer buffer = ByteBuffer.allocate((int) size);
+      while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+        // Channel may read less than requested
+      }
+      buffer.flip();
+      return buffer;
+    } finally {
+      in.close();
+    }
+  }
+}
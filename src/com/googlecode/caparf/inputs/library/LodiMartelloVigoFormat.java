@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2010 Denis Nazarov <denis.nsc@gmail.com>.
+ *
+ * This file is part of caparf (http://code.google.com/p/caparf/).
+ *
+ * caparf is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * caparf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with caparf. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.caparf.inputs.library;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.googlecode.caparf.framework.bpp2d.Codec;
+import com.googlecode.caparf.framework.bpp2d.Input;
+import com.googlecode.caparf.framework.items.Rectangle;
+
+/**
+ * Format of two dimensional bin packing instances by Lodi, Martello and Vigo
+ * (look at {@link LibraryFormat#LODI_MARTELLO_VIGO}).
+ *
+ * @author denis.nsc@gmail.com (Denis Nazarov)
+ */
+final class LodiMartelloVigoFormat extends LibraryFormat<Input> {
+
+  LodiMartelloVigoFormat() {
+    super("2bp", new Codec());
+  }
+
+  @Override
+  void parse(ByteScanner scanner, String fileName, List<Input> inputs) throws IOException {
+    int[] values = new int[2];
+    while (scanner.nextLine(values) != -1) {
+      // The first line is problem class
+      scanner.nextLine(values, 1);
+      int itemsCount = values[0];
+      if (itemsCount < 0) {
+        throw scanner.error("negative number of items");
+      }
+      scanner.nextLine(values, 2);
+      int instance = values[0];
+      scanner.nextLine(values, 2);
+      int binHeight = values[0];
+      int binWidth = values[1];
+      Rectangle[] items = new Rectangle[itemsCount];
+      for (int i = 0; i < itemsCount; i++) {
+        scanner.nextLine(values, 2);
+        items[i] = new Rectangle(values[1], values[0]);
+      }
+      inputs.add(new Input(items, binWidth, binHeight,
+          "bpp2d." + fileName + "." + String.format("%02d", instance)));
+    }
+  }
+}
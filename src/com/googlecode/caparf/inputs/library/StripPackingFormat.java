@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2010 Denis Nazarov <denis.nsc@gmail.com>.
+ *
+ * This file is part of caparf (http://code.google.com/p/caparf/).
+ *
+ * caparf is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * caparf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with caparf. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.caparf.inputs.library;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.googlecode.caparf.framework.items.Rectangle;
+import com.googlecode.caparf.framework.spp2d.Codec;
+import com.googlecode.caparf.framework.spp2d.Input;
+
+/**
+ * Format of two dimensional strip packing instances (look at
+ * {@link LibraryFormat#STRIP_PACKING}).
+ *
+ * @author denis.nsc@gmail.com (Denis Nazarov)
+ */
+final class StripPackingFormat extends LibraryFormat<Input> {
+
+  StripPackingFormat() {
+    super("spp", new Codec());
+  }
+
+  @Override
+  void parse(ByteScanner scanner, String fileName, List<Input> inputs) throws IOException {
+    int[] values = new int[3];
+    scanner.nextLine(values, 1);
+    int itemsCount = values[0];
+    if (itemsCount < 0) {
+      throw scanner.error("negative number of items");
+    }
+    scanner.nextLine(values, 1);
+    int stripWidth = values[0];
+    Rectangle[] items = new Rectangle[itemsCount];
+    for (int i = 0; i < itemsCount; i++) {
+      // Item number is optional
+      int offset = scanner.nextLine(values, 2) - 2;
+      items[i] = new Rectangle(values[offset], values[offset + 1]);
+    }
+    inputs.add(new Input(items, stripWidth, "spp2d." + fileName));
+  }
+}
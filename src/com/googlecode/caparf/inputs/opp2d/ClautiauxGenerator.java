@@ -20,11 +20,19 @@
 package com.googlecode.caparf.inputs.opp2d;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 import java.util.Scanner;
 
+import com.googlecode.caparf.framework.base.InputSuite;
 import com.googlecode.caparf.framework.items.Rectangle;
+import com.googlecode.caparf.framework.opp2d.Codec;
 import com.googlecode.caparf.framework.opp2d.Input;
+import com.googlecode.caparf.framework.util.InstanceBundle;
+import com.googlecode.caparf.framework.util.RandomUtil;
+import com.googlecode.caparf.inputs.InstanceGenerators;
+import com.googlecode.caparf.inputs.ReferenceLibrary;
 
 /**
  * Test instances generator proposed by Clautiuax. For the reference look at <a
@@ -33,6 +41,10 @@ import com.googlecode.caparf.framework.opp2d.Input;
  * <a href=
  * "http://www2.lifl.fr/~clautiau/pmwiki/pmwiki.php?n=Research.Benchmarks"
  * >François Clautiaux home page</a>.
+ * <p>
+ * Generated inputs are reproducible and can be generated in parallel (look at
+ * {@link #generateInstances(int, int, int, boolean, long, int)}). This class
+ * is thread-safe.
  *
  * @author denis.nsc@gmail.com (Denis Nazarov)
  */
@@ -41,34 +53,547 @@ public class ClautiauxGenerator {
   /** Prefix of inputs identifiers produced by {@code ClautiauxGenerator}. */
   public static final String INPUT_IDENTIFIER_PREFIX = "opp2d.Clautiaux.";
 
+  /** Width of bin of reference instances and of generated inputs by default. */
+  public static final int BIN_WIDTH = 20;
+
+  /** Height of bin of reference instances and of generated inputs by default. */
+  public static final int BIN_HEIGHT = 20;
+
+  /**
+   * Maximal number of perturbations of single guillotine cut per item that are
+   * made while looking for provably infeasible input.
+   */
+  private static final int PERTURBATIONS_PER_ITEM = 10;
+
+  /**
+   * Number of guillotine cuts which are randomly perturbed while looking for
+   * provably infeasible input. If all of them fail, infeasibility is forced.
+   */
+  private static final int PERTURBED_CUTS = 10;
+
+  /** Width of bin of generated inputs. */
+  private final int binWidth;
+
+  /** Height of bin of generated inputs. */
+  private final int binHeight;
+
+  /** Area of bin of generated inputs. */
+  private final int binArea;
+
+  /**
+   * Values of Carlier, Clautiaux and Moukrim dual-feasible function for bin
+   * width, {@code widthDff[k][x]} is the value for parameter {@code k} and
+   * argument {@code x}.
+   */
+  private final int[][] widthDff;
+
+  /** The same as {@link #widthDff} for bin height. */
+  private final int[][] heightDff;
+
+  /** Areas of the bin transformed by all pairs of dual-feasible functions. */
+  private final long[] binDffAreas;
+
+  /** Random generator that will be used to generate seeds. */
+  private final Random seedGenerator;
+
+  /**
+   * Constructs generator of inputs with bin of the same size as in reference
+   * instances.
+   */
+  public ClautiauxGenerator() {
+    this(BIN_WIDTH, BIN_HEIGHT);
+  }
+
+  /**
+   * Constructs generator of inputs with bin of the given size. Generation of
+   * infeasible input takes {@code O(binWidth * binHeight)} memory and time per
+   * change of item, so bin should be small, like in reference instances.
+   *
+   * @param binWidth width of bin
+   * @param binHeight height of bin
+   */
+  public ClautiauxGenerator(int binWidth, int binHeight) {
+    if (binWidth < 1 || binHeight < 1) {
+      throw new IllegalArgumentException("Bin width and height must be positive");
+    }
+    if ((long) binWidth * binHeight > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Bin is too large");
+    }
+    this.binWidth = binWidth;
+    this.binHeight = binHeight;
+    this.binArea = binWidth * binHeight;
+    this.widthDff = dualFeasibleFunctions(binWidth);
+    this.heightDff = dualFeasibleFunctions(binHeight);
+    this.binDffAreas = new long[binArea];
+    addDffArea(binDffAreas, binWidth, binHeight, 1);
+    this.seedGenerator = new Random();
+  }
+
+  /**
+   * @return width of bin of generated inputs
+   */
+  public int getBinWidth() {
+    return binWidth;
+  }
+
+  /**
+   * @return height of bin of generated inputs
+   */
+  public int getBinHeight() {
+    return binHeight;
+  }
+
+  /**
+   * Generates {@code count} inputs with {@code itemsCount} items.
+   *
+   * @param count number of inputs to generate
+   * @param itemsCount number of items to generate (per one input)
+   * @param discrepancy discrepancy between the total area of the items and the
+   *          area of the bin, in percents
+   * @param feasible whether to generate feasible or infeasible inputs
+   * @return {@code count} inputs with {@code itemsCount} items
+   * @see #generateInstance(int, int, boolean, long)
+   */
+  public List<Input> generateInstances(int count, int itemsCount, int discrepancy,
+      boolean feasible) {
+    return generateInstances(count, itemsCount, discrepancy, feasible, seedGenerator.nextLong());
+  }
+
+  /**
+   * Generates {@code count} inputs with {@code itemsCount} items. List of
+   * inputs generated with the same {@code seed} by this method will be
+   * identical.
+   *
+   * @param count number of inputs to generate
+   * @param itemsCount number of items to generate (per one input)
+   * @param discrepancy discrepancy between the total area of the items and the
+   *          area of the bin, in percents
+   * @param feasible whether to generate feasible or infeasible inputs
+   * @param seed the initial seed
+   * @return {@code count} inputs with {@code itemsCount} items
+   * @see #generateInstance(int, int, boolean, long)
+   */
+  public List<Input> generateInstances(int count, int itemsCount, int discrepancy,
+      boolean feasible, long seed) {
+    return generateInstances(count, itemsCount, discrepancy, feasible, seed, 1);
+  }
+
+  /**
+   * Generates {@code count} inputs with {@code itemsCount} items by
+   * {@code threads} threads. Result is identical to the result of
+   * {@link #generateInstances(int, int, int, boolean, long)} with the same
+   * {@code seed} regardless of number of threads.
+   *
+   * @param count number of inputs to generate
+   * @param itemsCount number of items to generate (per one input)
+   * @param discrepancy discrepancy between the total area of the items and the
+   *          area of the bin, in percents
+   * @param feasible whether to generate feasible or infeasible inputs
+   * @param seed the initial seed
+   * @param threads number of threads generating inputs
+   * @return {@code count} inputs with {@code itemsCount} items
+   */
+  public List<Input> generateInstances(int count, int itemsCount, int discrepancy,
+      boolean feasible, long seed, int threads) {
+    return InstanceGenerators.generate(
+        instanceGenerator(itemsCount, discrepancy, feasible, seed), count, threads);
+  }
+
+  /**
+   * Returns generator of inputs with {@code itemsCount} items by index. Input
+   * generated for index {@code k} is identical to {@code k}-th input of
+   * {@link #generateInstances(int, int, int, boolean, long)} with the same
+   * {@code seed}, it is generated without generating previous inputs. Returned
+   * generator is thread-safe and can be used to stream inputs (look at
+   * {@link InputSuite#addGenerated(InputSuite.InputGenerator, long, int)}).
+   * Parameters are validated by this method, so returned generator never
+   * fails.
+   *
+   * @param itemsCount number of items to generate (per one input)
+   * @param discrepancy discrepancy between the total area of the items and the
+   *          area of the bin, in percents
+   * @param feasible whether to generate feasible or infeasible inputs
+   * @param seed the initial seed
+   * @return generator of inputs by index
+   * @throws IllegalArgumentException if inputs can't be generated for the
+   *           given parameters (look at
+   *           {@link #generateInstance(int, int, boolean, long)})
+   */
+  public InputSuite.InputGenerator<Input> instanceGenerator(final int itemsCount,
+      final int discrepancy, final boolean feasible, final long seed) {
+    getItemsArea(itemsCount, discrepancy, feasible);
+    return new InputSuite.InputGenerator<Input>() {
+      @Override
+      public Input generateInput(long index) {
+        return generateInstance(itemsCount, discrepancy, feasible,
+            RandomUtil.nthLong(seed, index));
+      }
+    };
+  }
+
   /**
-   * Generates single input by the given parameters.
+   * Generates single input with {@code itemsCount} items.
    *
    * @param itemsCount number of items to generate
    * @param discrepancy discrepancy between the total area of the items and the
    *          area of the bin, in percents
+   * @param feasible whether to generate feasible or infeasible input
    * @return generated input
+   * @see #generateInstance(int, int, boolean, long)
    */
-  // TODO(dnazarov): implement generator once all details will be clear
-  public Input generateInstance(int itemsCount, int discrepancy) {
-    throw new UnsupportedOperationException();
+  public Input generateInstance(int itemsCount, int discrepancy, boolean feasible) {
+    return generateInstance(itemsCount, discrepancy, feasible, seedGenerator.nextLong());
   }
 
   /**
-   * @return reference instances provided by François Clautiaux
+   * Generates single input with {@code itemsCount} items. Inputs generated
+   * with the same {@code seed} by this method will be identical.
+   * <p>
+   * The bin is cut into {@code itemsCount} items by random guillotine cuts,
+   * then random items are shrunk until their total area is less than the area
+   * of the bin by {@code discrepancy} percents. Such input is feasible by
+   * construction. Infeasible input is obtained by perturbing the items: random
+   * item is enlarged and others are shrunk back to the same total area until
+   * items provably don't fit into the bin. Infeasibility is proved by
+   * dual-feasible functions of Carlier, Clautiaux and Moukrim applied to both
+   * dimensions (look at
+   * {@link com.googlecode.caparf.algorithms.spp2d.lowerbounds.CarlierClautiauxMoukrimBound}),
+   * while total area of the items doesn't exceed the area of the bin. The less
+   * {@code discrepancy} and the more {@code itemsCount} the harder the input
+   * is.
+   * <p>
+   * If perturbations of a cut fail, new cut is tried with seed derived from
+   * {@code seed}. Provably infeasible inputs become rare as {@code itemsCount}
+   * and {@code discrepancy} grow, so after several failed cuts infeasibility
+   * is forced: two largest items are grown until infeasibility is proved, at
+   * latest when they are larger than half of the bin in both dimensions and
+   * can't be packed together. Therefore infeasible inputs are generated only
+   * if two such items and {@code itemsCount - 2} unit items fit into the total
+   * area of items, i.e. if
+   * {@code 2 * (binWidth / 2 + 1) * (binHeight / 2 + 1) + itemsCount - 2}
+   * doesn't exceed it. For the bin of reference instances this is 240 plus
+   * number of items, e.g. at most 160 items with discrepancy {@code 0} and at
+   * most 40 items with discrepancy {@code 30}.
+   *
+   * @param itemsCount number of items to generate
+   * @param discrepancy discrepancy between the total area of the items and the
+   *          area of the bin, in percents
+   * @param feasible whether to generate feasible or infeasible input
+   * @param seed the initial seed
+   * @return generated input
+   * @throws IllegalArgumentException if items can't have the requested total
+   *           area or if infeasible input can't be proved for the given
+   *           parameters
    */
-  public static List<Input> getReferenceInstances() {
-    return REFERENCE_INSTANCES;
+  public Input generateInstance(int itemsCount, int discrepancy, boolean feasible, long seed) {
+    int itemsArea = getItemsArea(itemsCount, discrepancy, feasible);
+    Random random = new Random(seed);
+    int[] widths = new int[itemsCount];
+    int[] heights = new int[itemsCount];
+    if (feasible) {
+      cutBin(widths, heights, random);
+      shrinkItems(widths, heights, binArea, itemsArea, -1, -1, null, random);
+    } else {
+      generateInfeasible(widths, heights, itemsArea, random, seed);
+    }
+    Rectangle[] items = new Rectangle[itemsCount];
+    for (int i = 0; i < itemsCount; i++) {
+      items[i] = new Rectangle(widths[i], heights[i]);
+    }
+    String name = String.format("E%02d%c%02d", discrepancy, feasible ? 'F' : 'N', itemsCount);
+    return new Input(items, binWidth, binHeight, INPUT_IDENTIFIER_PREFIX + "random." + binWidth
+        + "x" + binHeight + "." + name + "." + seed);
   }
 
-  /** Reference instances. */
-  private static final List<Input> REFERENCE_INSTANCES;
+  /**
+   * Returns the total area of items for the given parameters.
+   *
+   * @throws IllegalArgumentException if items can't have such total area or
+   *           infeasibility of such items can't be forced
+   */
+  private int getItemsArea(int itemsCount, int discrepancy, boolean feasible) {
+    if (itemsCount < 1) {
+      throw new IllegalArgumentException("Number of items must be positive");
+    }
+    if (discrepancy < 0 || discrepancy >= 100) {
+      throw new IllegalArgumentException("Discrepancy must be in [0 .. 100) range");
+    }
+    int itemsArea = binArea - (int) ((long) binArea * discrepancy / 100);
+    if (itemsArea < itemsCount) {
+      throw new IllegalArgumentException("Total area of items is too small for " + itemsCount
+          + " items");
+    }
+    if (!feasible && (itemsCount < 2 || binWidth < 2 || binHeight < 2
+        || 2L * (binWidth / 2 + 1) * (binHeight / 2 + 1) + itemsCount - 2 > itemsArea)) {
+      throw new IllegalArgumentException("Infeasibility can't be proved for " + itemsCount
+          + " items with discrepancy " + discrepancy + "% in " + binWidth + "x" + binHeight
+          + " bin");
+    }
+    return itemsArea;
+  }
+
+  /** Cuts the bin into {@code widths.length} items by random guillotine cuts. */
+  private void cutBin(int[] widths, int[] heights, Random random) {
+    widths[0] = binWidth;
+    heights[0] = binHeight;
+    // Items larger than 1x1 are cut, the larger item the more likely it is cut
+    int cuttableArea = cuttableArea(binWidth, binHeight);
+    for (int count = 1; count < widths.length; count++) {
+      int x = random.nextInt(cuttableArea);
+      int i = 0;
+      while (x >= cuttableArea(widths[i], heights[i])) {
+        x -= cuttableArea(widths[i], heights[i]);
+        i++;
+      }
+      cuttableArea -= widths[i] * heights[i];
+      if (heights[i] == 1 || (widths[i] > 1 && random.nextBoolean())) {
+        int cut = random.nextInt(widths[i] - 1) + 1;
+        widths[count] = widths[i] - cut;
+        heights[count] = heights[i];
+        widths[i] = cut;
+      } else {
+        int cut = random.nextInt(heights[i] - 1) + 1;
+        widths[count] = widths[i];
+        heights[count] = heights[i] - cut;
+        heights[i] = cut;
+      }
+      cuttableArea += cuttableArea(widths[i], heights[i]) + cuttableArea(widths[count],
+          heights[count]);
+    }
+  }
+
+  /** Returns area of item if it can be cut and {@code 0} otherwise. */
+  private static int cuttableArea(int width, int height) {
+    return (width * height > 1) ? width * height : 0;
+  }
+
+  /**
+   * Shrinks random items by one unit until their total area doesn't exceed
+   * {@code itemsArea}. Items {@code fixed1} and {@code fixed2} are not shrunk,
+   * use {@code -1} to shrink all items. Transformed areas of items are updated
+   * unless {@code dffAreas} is {@code null} (look at {@link #addDffArea}).
+   *
+   * @return new total area of items
+   */
+  private int shrinkItems(int[] widths, int[] heights, int area, int itemsArea, int fixed1,
+      int fixed2, long[] dffAreas, Random random) {
+    while (area > itemsArea) {
+      int i = random.nextInt(widths.length);
+      if (i == fixed1 || i == fixed2) {
+        continue;
+      }
+      if (heights[i] > 1 && (widths[i] == 1 || random.nextBoolean())) {
+        area -= widths[i];
+        resizeItem(widths, heights, i, widths[i], heights[i] - 1, dffAreas);
+      } else if (widths[i] > 1) {
+        area -= heights[i];
+        resizeItem(widths, heights, i, widths[i] - 1, heights[i], dffAreas);
+      }
+    }
+    return area;
+  }
+
+  /**
+   * Generates items with total area not exceeding {@code itemsArea} that
+   * provably don't fit into the bin. Guillotine cuts of the bin are perturbed,
+   * each next cut is made by random generator with seed derived from
+   * {@code seed}. If all cuts fail, infeasibility is forced on the last one
+   * (look at {@link #forceInfeasible}).
+   */
+  private void generateInfeasible(int[] widths, int[] heights, int itemsArea, Random random,
+      long seed) {
+    long[] dffAreas = new long[binDffAreas.length];
+    for (int attempt = 1; attempt <= PERTURBED_CUTS; attempt++) {
+      if (perturbUntilInfeasible(widths, heights, itemsArea, dffAreas, random)) {
+        return;
+      }
+      random = new Random(RandomUtil.nthLong(seed, attempt));
+    }
+    forceInfeasible(widths, heights, itemsArea, dffAreas, random);
+  }
+
+  /**
+   * Cuts the bin and perturbs the cut until items provably don't fit into the
+   * bin.
+   *
+   * @return whether infeasible items were generated
+   */
+  private boolean perturbUntilInfeasible(int[] widths, int[] heights, int itemsArea,
+      long[] dffAreas, Random random) {
+    cutBin(widths, heights, random);
+    int area = shrinkItems(widths, heights, binArea, itemsArea, -1, -1, null, random);
+    Arrays.fill(dffAreas, 0);
+    for (int i = 0; i < widths.length; i++) {
+      addDffArea(dffAreas, widths[i], heights[i], 1);
+    }
+    int perturbations = PERTURBATIONS_PER_ITEM * widths.length;
+    for (int step = 0; step < perturbations; step++) {
+      int i = random.nextInt(widths.length);
+      if (widths[i] < binWidth && (heights[i] == binHeight || random.nextBoolean())) {
+        area += heights[i];
+        resizeItem(widths, heights, i, widths[i] + 1, heights[i], dffAreas);
+      } else if (heights[i] < binHeight) {
+        area += widths[i];
+        resizeItem(widths, heights, i, widths[i], heights[i] + 1, dffAreas);
+      }
+      area = shrinkItems(widths, heights, area, itemsArea, -1, -1, dffAreas, random);
+      if (exceedsBin(dffAreas)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Grows two largest items by one unit until items provably don't fit into
+   * the bin, other items are shrunk back to {@code itemsArea}. Growth stops at
+   * latest when both items are larger than half of the bin in both dimensions:
+   * such items can't be packed together, which is proved by dual-feasible
+   * functions with parameters equal to bin sides.
+   */
+  private void forceInfeasible(int[] widths, int[] heights, int itemsArea, long[] dffAreas,
+      Random random) {
+    int first = -1;
+    int second = -1;
+    for (int i = 0; i < widths.length; i++) {
+      if (first == -1 || widths[i] * heights[i] > widths[first] * heights[first]) {
+        second = first;
+        first = i;
+      } else if (second == -1 || widths[i] * heights[i] > widths[second] * heights[second]) {
+        second = i;
+      }
+    }
+    int targetWidth = binWidth / 2 + 1;
+    int targetHeight = binHeight / 2 + 1;
+    for (int i : new int[] { first, second }) {
+      resizeItem(widths, heights, i, Math.min(widths[i], targetWidth),
+          Math.min(heights[i], targetHeight), dffAreas);
+    }
+    int area = 0;
+    for (int i = 0; i < widths.length; i++) {
+      area += widths[i] * heights[i];
+    }
+    area = shrinkItems(widths, heights, area, itemsArea, first, second, dffAreas, random);
+    while (!exceedsBin(dffAreas)) {
+      // Items are proved not to fit once both of them reach target size
+      int i = random.nextBoolean() ? first : second;
+      if (widths[i] == targetWidth && heights[i] == targetHeight) {
+        i = (i == first) ? second : first;
+      }
+      if (widths[i] < targetWidth && (heights[i] == targetHeight || random.nextBoolean())) {
+        area += heights[i];
+        resizeItem(widths, heights, i, widths[i] + 1, heights[i], dffAreas);
+      } else {
+        area += widths[i];
+        resizeItem(widths, heights, i, widths[i], heights[i] + 1, dffAreas);
+      }
+      area = shrinkItems(widths, heights, area, itemsArea, first, second, dffAreas, random);
+    }
+  }
+
+  /**
+   * Sets size of {@code i}-th item, transformed areas of items are updated
+   * unless {@code dffAreas} is {@code null}.
+   */
+  private void resizeItem(int[] widths, int[] heights, int i, int width, int height,
+      long[] dffAreas) {
+    if (dffAreas != null) {
+      addDffArea(dffAreas, widths[i], heights[i], -1);
+      addDffArea(dffAreas, width, height, 1);
+    }
+    widths[i] = width;
+    heights[i] = height;
+  }
+
+  /**
+   * Adds area of item transformed by all pairs of dual-feasible functions
+   * multiplied by {@code sign} to {@code dffAreas}. Transformed area for
+   * parameters {@code kw} and {@code kh} is stored at index
+   * {@code (kw - 1) * binHeight + kh - 1}. Maintaining transformed areas
+   * incrementally makes check of perturbed items independent of their number.
+   */
+  private void addDffArea(long[] dffAreas, int width, int height, int sign) {
+    int index = 0;
+    for (int kw = 1; kw <= binWidth; kw++) {
+      long widthValue = sign * widthDff[kw][width];
+      for (int kh = 1; kh <= binHeight; kh++) {
+        dffAreas[index++] += widthValue * heightDff[kh][height];
+      }
+    }
+  }
+
+  /**
+   * Returns whether items provably don't fit into the bin, i.e. whether total
+   * area of items transformed by some pair of dual-feasible functions exceeds
+   * the transformed area of the bin.
+   */
+  private boolean exceedsBin(long[] dffAreas) {
+    for (int i = 0; i < dffAreas.length; i++) {
+      if (dffAreas[i] > binDffAreas[i]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Tabulates Carlier, Clautiaux and Moukrim dual-feasible functions for bin
+   * side {@code c} and all parameters {@code k} in {@code [1 .. c]} range.
+   */
+  private static int[][] dualFeasibleFunctions(int c) {
+    int[][] values = new int[c + 1][c + 1];
+    for (int k = 1; k <= c; k++) {
+      for (int x = 0; x <= c; x++) {
+        if (2 * x > c) {
+          values[k][x] = 2 * (c / k) - 2 * ((c - x) / k);
+        } else if (2 * x < c) {
+          values[k][x] = 2 * (x / k);
+        } else {
+          values[k][x] = c / k;
+        }
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Returns reference instances. They are loaded on the first call and cached
+   * until memory is needed.
+   *
+   * @return unmodifiable list of reference instances provided by François
+   *         Clautiaux
+   */
+  public static List<Input> getReferenceInstances() {
+    return REFERENCE_LIBRARY.getInstances(0);
+  }
 
   /** Name of resource with reference instances. */
   private static final String REFERENCE_INSTANCES_RESOURCE_NAME = "ClautiauxReferenceInstances.txt";
 
-  static {
-    REFERENCE_INSTANCES = new ArrayList<Input>();
+  /**
+   * Name of resource with reference instances bundle (look at
+   * {@link InstanceBundle}).
+   */
+  public static final String REFERENCE_BUNDLE_RESOURCE_NAME = "ClautiauxReferenceInstances.bin";
+
+  /** Lazily loaded reference instances, all of them are in the single class. */
+  private static final ReferenceLibrary<Input> REFERENCE_LIBRARY = new ReferenceLibrary<Input>(
+      ClautiauxGenerator.class, REFERENCE_BUNDLE_RESOURCE_NAME, new Codec(), 1) {
+    @Override
+    protected List<Input> parseText() {
+      return parseReferenceInstances();
+    }
+  };
+
+  /**
+   * Parses reference instances from the text resource. It is much slower than
+   * loading of the bundle, so it is used only to build the bundle (look at
+   * {@link com.googlecode.caparf.inputs.ReferenceBundleConverter}).
+   *
+   * @return reference instances
+   */
+  public static List<Input> parseReferenceInstances() {
+    List<Input> instances = new ArrayList<Input>();
     Scanner scanner = new Scanner(ClautiauxGenerator.class
         .getResourceAsStream(REFERENCE_INSTANCES_RESOURCE_NAME));
     while (scanner.hasNext()) {
@@ -80,8 +605,8 @@ public class ClautiauxGenerator {
       for (int i = 0; i < itemsCount; i++) {
         items[i] = new Rectangle(scanner.nextInt(), scanner.nextInt());
       }
-      REFERENCE_INSTANCES.add(new Input(items, binWidth, binHeight, INPUT_IDENTIFIER_PREFIX +
-          instanceId));
+      instances.add(new Input(items, binWidth, binHeight, INPUT_IDENTIFIER_PREFIX + instanceId));
     }
+    return instances;
   }
 }
@@ -39,7 +39,7 @@ public class Converter {
    */
   public static com.googlecode.caparf.framework.spp2d.Input convertOpp2d(
       com.googlecode.caparf.framework.opp2d.Input opp2dInput) {
-    return new com.googlecode.caparf.framework.spp2d.Input(opp2dInput.getItems(),
+    return new com.googlecode.caparf.framework.spp2d.Input(opp2dInput.getRectangles(),
         opp2dInput.getBinWidth(), opp2dInput.getIdentifier().replaceFirst("opp2d", "spp2d"));
   }
 
@@ -71,7 +71,7 @@ public class Converter {
    */
   public static com.googlecode.caparf.framework.spp2d.Input convertBpp2d(
       com.googlecode.caparf.framework.bpp2d.Input bpp2dInput) {
-    return new com.googlecode.caparf.framework.spp2d.Input(bpp2dInput.getItems(),
+    return new com.googlecode.caparf.framework.spp2d.Input(bpp2dInput.getRectangles(),
         bpp2dInput.getBinWidth(), bpp2dInput.getIdentifier().replaceFirst("bpp2d", "spp2d"));
   }
 